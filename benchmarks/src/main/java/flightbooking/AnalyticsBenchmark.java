@@ -0,0 +1,74 @@
+package flightbooking;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// One analytics pass over a synthetic journal (about 45 bytes a line) as worker threads are added
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx1g", "-Dbooking.analytics.split.mb=16"})
+@State(Scope.Benchmark)
+public class AnalyticsBenchmark {
+    private static final int FLIGHTS = 10000;
+
+    @Param({"2000000"})
+    int lines;
+
+    @Param({"1", "2", "4"})
+    int threads;
+
+    private Path journal;
+    private ForkJoinPool pool;
+    private BookingAnalytics analytics;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        FlightTable table = new FlightTable();
+        for (int i = 0; i < FLIGHTS; i++) {
+            BenchmarkCatalog.flight(table, i, 200);
+        }
+        analytics = new BookingAnalytics(table);
+        journal = Files.createTempFile("analytics-bench", ".journal");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(journal), 1 << 16)) {
+            for (int i = 0; i < lines; i++) {
+                String user = "user" + (i * 7919 % 50000);
+                String flight = BenchmarkCatalog.flightNumber(i % FLIGHTS);
+                BookingJournal.Entry entry = i % 5 == 4
+                    ? BookingJournal.Entry.cancellation(user, flight, "Passenger " + (i - 1), i % 200, 350000 + (i - 1) % 50 * 10000)
+                    : BookingJournal.Entry.booking(user, flight, "Passenger " + i, i % 200, 350000 + i % 50 * 10000);
+                out.write(BookingJournal.encode(i + 1, entry));
+            }
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        pool.shutdown();
+        Files.deleteIfExists(journal);
+    }
+
+    @Benchmark
+    public long analyze() throws Exception {
+        return analytics.analyze(journal, pool).bookings;
+    }
+}
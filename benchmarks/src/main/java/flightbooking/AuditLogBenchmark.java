@@ -0,0 +1,50 @@
+package flightbooking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Latency distribution of recording an audit event from several producers, as a login or booking sees it
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditLogBenchmark {
+    Path dataDir;
+    AuditLog audit;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("audit-bench");
+        audit = new AuditLog(dataDir.resolve("audit.log"), 8192, AuditLog.Overflow.DROP, 16L << 20, 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        audit.close();
+        System.out.println("Dropped events: " + audit.dropped());
+        BenchmarkCatalog.deleteRecursively(dataDir);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean recordBooking() {
+        return audit.record(AuditLog.Type.BOOK, "asha", "AI101", 12, 0);
+    }
+}
@@ -0,0 +1,63 @@
+package flightbooking;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// Deterministic synthetic catalogs for the benchmarks: flights are spread over a fixed set of
+// cities so route sizes stay realistic as the catalog grows.
+class BenchmarkCatalog {
+    static final int CITIES = 200;
+
+    static String city(int i) {
+        return "City" + i;
+    }
+
+    static String flightNumber(int i) {
+        return "BM" + i;
+    }
+
+    static int source(int i) {
+        return i % CITIES;
+    }
+
+    static int destination(int i) {
+        return (source(i) + 1 + (i / CITIES) % (CITIES - 1)) % CITIES;
+    }
+
+    static String departureTime(int i) {
+        return Flight.formatMinuteOfDay((i * 37) % (24 * 60));
+    }
+
+    static double price(int i) {
+        return 3000 + (i % 50) * 100;
+    }
+
+    // A flight in a standalone table, for benchmarks that need no booking system
+    static Flight flight(FlightTable table, int i, int seats) {
+        return table.add(flightNumber(i), city(source(i)), city(destination(i)), seats, price(i), departureTime(i));
+    }
+
+    static void addFlights(BookingSystem system, int count, int seats) {
+        for (int i = 0; i < count; i++) {
+            system.addFlight(flightNumber(i), city(source(i)), city(destination(i)), seats, price(i), departureTime(i));
+        }
+    }
+
+    static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package flightbooking;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Catalog lookups and route search across catalog sizes
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class CatalogBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    int flights;
+
+    BookingSystem system;
+    private Path dataDir;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataDir = Files.createTempDirectory("catalog-bench");
+        system = new BookingSystem(dataDir);
+        BenchmarkCatalog.addFlights(system, flights, 200);
+        system.recover();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        system.close();
+        BenchmarkCatalog.deleteRecursively(dataDir);
+    }
+
+    private int next() {
+        cursor = (cursor + 7919) % flights;
+        return cursor;
+    }
+
+    @Benchmark
+    public Flight getFlightByIndex() {
+        return system.getFlight(next());
+    }
+
+    @Benchmark
+    public Flight getFlightByNumber() {
+        return system.getFlight(BenchmarkCatalog.flightNumber(next()));
+    }
+
+    @Benchmark
+    public List<Flight> directRoute() {
+        Flight flight = system.getFlight(next());
+        return system.getFlights(flight.source(), flight.destination());
+    }
+
+    // Served from the cached facet snapshot; the synthetic cities are in neither market
+    @Benchmark
+    public List<String> domesticDestinations() {
+        return system.getDestinations(false);
+    }
+
+    @Benchmark
+    public List<ItinerarySearch.Itinerary> cheapestItineraries() {
+        int from = next() % BenchmarkCatalog.CITIES;
+        int to = (from + 97) % BenchmarkCatalog.CITIES;
+        return system.searchItineraries(BenchmarkCatalog.city(from), BenchmarkCatalog.city(to), 3,
+            ItinerarySearch.Objective.CHEAPEST, 1);
+    }
+}
@@ -0,0 +1,100 @@
+package flightbooking;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Departure-time queries on a single route as its schedule grows; the scan is the filter the
+// departure index replaces
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class DepartureBenchmark {
+    @Param({"100", "10000", "1000000"})
+    int flights;
+
+    BookingSystem system;
+    private Path dataDir;
+    private final String source = BenchmarkCatalog.city(0);
+    private final String destination = BenchmarkCatalog.city(1);
+    private final LocalDate date = LocalDate.of(2026, 1, 1);
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataDir = Files.createTempDirectory("departure-bench");
+        system = new BookingSystem(dataDir);
+        for (int i = 0; i < flights; i++) {
+            system.addFlight(BenchmarkCatalog.flightNumber(i), source, destination, 200,
+                BenchmarkCatalog.price(i), BenchmarkCatalog.departureTime(i));
+        }
+        system.recover();
+        // Build the route's schedule outside the measurement
+        system.getDepartures(source, destination, 0, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        system.close();
+        BenchmarkCatalog.deleteRecursively(dataDir);
+    }
+
+    private int nextMinute() {
+        cursor = (cursor + 367) % (24 * 60);
+        return cursor;
+    }
+
+    @Benchmark
+    public List<DepartureIndex.Departure> nextFiveDepartures() {
+        return system.nextDepartures(source, destination, date.atStartOfDay().plusMinutes(nextMinute()), 5);
+    }
+
+    @Benchmark
+    public List<DepartureIndex.Departure> nextFiveDeparturesScan() {
+        int after = nextMinute();
+        List<Flight> candidates = new ArrayList<>();
+        for (Flight flight : system.getFlights(source, destination)) {
+            if (flight.departureMinute() >= after) candidates.add(flight);
+        }
+        candidates.sort((a, b) -> Integer.compare(a.departureMinute(), b.departureMinute()));
+        List<DepartureIndex.Departure> result = new ArrayList<>();
+        for (int i = 0; i < Math.min(5, candidates.size()); i++) {
+            Flight flight = candidates.get(i);
+            result.add(new DepartureIndex.Departure(flight, date.atStartOfDay().plusMinutes(flight.departureMinute())));
+        }
+        return result;
+    }
+
+    // A fixed window, so the answer grows with the schedule's density
+    @Benchmark
+    public List<Flight> oneHourWindow() {
+        int from = nextMinute();
+        return system.getDepartures(source, destination, from, (from + 59) % (24 * 60));
+    }
+
+    @Benchmark
+    public List<DepartureIndex.Departure> overnightDatedWindow() {
+        LocalDateTime from = date.atTime(23, 30);
+        return system.getDepartures(source, destination, from, from.plusMinutes(60));
+    }
+}
@@ -0,0 +1,73 @@
+package flightbooking;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Pricing a 10k-result search page from each flight's cached load bucket, against deriving the bucket
+// from the seat counts on every read
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FareBenchmark {
+    static final int PAGE = 10_000;
+
+    Flight[] page;
+    int[] daysToDeparture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FlightTable table = new FlightTable();
+        page = new Flight[PAGE];
+        daysToDeparture = new int[PAGE];
+        for (int i = 0; i < PAGE; i++) {
+            Flight flight = BenchmarkCatalog.flight(table, i, 180);
+            // Spread the page across every load bucket
+            flight.tryReserveSeats((i * 7) % 180);
+            page[i] = flight;
+            daysToDeparture[i] = i % 30;
+        }
+    }
+
+    @Benchmark
+    public long pricePage() {
+        long total = 0;
+        for (int i = 0; i < PAGE; i++) {
+            total += page[i].getFare(Fares.FareClass.STANDARD, daysToDeparture[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long pricePageRecomputed() {
+        long total = 0;
+        for (int i = 0; i < PAGE; i++) {
+            Flight flight = page[i];
+            int load = Fares.loadBucket(flight.totalSeats(), flight.availableSeats());
+            total += Fares.fare(flight.basePaise(), load, Fares.timeBucket(daysToDeparture[i]), Fares.FareClass.STANDARD);
+        }
+        return total;
+    }
+
+    // A booking and cancellation that cross a load threshold each time, forcing a reprice
+    @Benchmark
+    public long repriceOnThreshold() {
+        Flight flight = page[0];
+        flight.tryReserveSeats(90);
+        long fare = flight.getFare(Fares.FareClass.STANDARD);
+        flight.releaseSeats(90);
+        return fare;
+    }
+}
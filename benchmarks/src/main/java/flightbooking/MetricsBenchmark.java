@@ -0,0 +1,38 @@
+package flightbooking;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Cost of timing one operation into a latency histogram; run with -prof gc to confirm it allocates nothing
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    final LatencyHistogram histogram = new LatencyHistogram("benchmark");
+
+    @Benchmark
+    @Threads(1)
+    public void timeOperation() {
+        long start = Metrics.start();
+        Metrics.record(histogram, start);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void timeOperationContended() {
+        long start = Metrics.start();
+        Metrics.record(histogram, start);
+    }
+}
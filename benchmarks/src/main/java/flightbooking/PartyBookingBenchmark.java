@@ -0,0 +1,85 @@
+package flightbooking;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Cost of booking one party as its size grows: bookParty reserves every seat at once and persists
+// the party with one journal commit and one store write; perPassenger commits each passenger on
+// its own, as the console used to
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Dbooking.journal.durability=BATCHED"})
+@State(Scope.Benchmark)
+public class PartyBookingBenchmark {
+    private static final int FLIGHTS = 2000;
+    private static final String USER = "bench";
+
+    @Param({"1", "2", "4", "6", "9"})
+    int partySize;
+
+    BookingSystem system;
+    private Path dataDir;
+    private List<BookingSystem.Passenger> party;
+    private int cursor;
+
+    // A fresh catalog each iteration so no flight sells out under measurement
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        dataDir = Files.createTempDirectory("party-bench");
+        system = new BookingSystem(dataDir);
+        BenchmarkCatalog.addFlights(system, FLIGHTS, 1000);
+        system.recover();
+        party = new ArrayList<>(partySize);
+        for (int i = 0; i < partySize; i++) {
+            party.add(new BookingSystem.Passenger("Passenger " + i, i == 1 ? 8 : 30));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        system.close();
+        BenchmarkCatalog.deleteRecursively(dataDir);
+    }
+
+    private Flight nextFlight() {
+        cursor = (cursor + 1) % FLIGHTS;
+        return system.getFlight(cursor);
+    }
+
+    @Benchmark
+    public BookingSystem.PartyBooking bookParty() {
+        return system.bookParty(USER, nextFlight(), Fares.FareClass.STANDARD, Fares.NO_DATE, party, null);
+    }
+
+    @Benchmark
+    public BookingSystem.PartyBooking perPassenger() {
+        Flight flight = nextFlight();
+        long fare = flight.getFare(Fares.FareClass.STANDARD);
+        int[] seats = new int[party.size()];
+        flight.reserveSeats(seats.length, seats);
+        BookingSystem.PartyBooking booking = BookingSystem.PartyBooking.seated(flight, fare, seats, party);
+        for (BookingSystem.BookingRecord record : booking.records) {
+            system.confirmBookings(Collections.singletonMap(USER, List.of(record)));
+        }
+        return booking;
+    }
+}
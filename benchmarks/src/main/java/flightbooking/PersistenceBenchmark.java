@@ -0,0 +1,71 @@
+package flightbooking;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// saveUserBookings and loadUserBookings for a user with a growing booking history
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Dbooking.journal.durability=BATCHED"})
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    private static final int FLIGHTS = 1000;
+    private static final String USER = "bench";
+
+    @Param({"100", "10000", "100000"})
+    int history;
+
+    BookingSystem system;
+    private Path dataDir;
+    private Flight flight;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataDir = Files.createTempDirectory("persistence-bench");
+        try (BufferedWriter writer = Files.newBufferedWriter(dataDir.resolve(USER + "_bookings.txt"))) {
+            for (int i = 0; i < history; i++) {
+                writer.write("Passenger " + i + " (Passenger 1, Age 30)," + BenchmarkCatalog.flightNumber(i % FLIGHTS));
+                writer.newLine();
+            }
+        }
+        system = new BookingSystem(dataDir);
+        // Bookings here are persisted without reserving seats, so a normal cabin size is enough
+        BenchmarkCatalog.addFlights(system, FLIGHTS, 400);
+        system.recover();
+        flight = system.getFlight(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        system.close();
+        BenchmarkCatalog.deleteRecursively(dataDir);
+    }
+
+    @Benchmark
+    public void saveUserBookings() {
+        system.saveUserBookings(USER, List.of(new BookingSystem.BookingRecord(flight, "New (Passenger 1, Age 30)")));
+    }
+
+    @Benchmark
+    public void loadUserBookings() {
+        system.loadUserBookings(USER);
+    }
+}
@@ -0,0 +1,104 @@
+package flightbooking;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Measures restart time against booking history size: a full journal replay versus
+// loading the latest snapshot and replaying only the tail written after it.
+// Run with: java -cp benchmarks/target/benchmarks.jar flightbooking.RecoveryBenchmark [historySize...]
+public class RecoveryBenchmark {
+    private static final int FLIGHTS = 1000;
+    private static final int TAIL = 1000;
+    private static final int BATCH = 10000;
+
+    public static void main(String[] args) throws Exception {
+        long[] sizes = args.length > 0
+            ? Stream.of(args).mapToLong(Long::parseLong).toArray()
+            : new long[] {10_000, 100_000, 1_000_000};
+        // Keep background snapshots out of the timed section
+        System.setProperty("booking.snapshot.interval", String.valueOf(Integer.MAX_VALUE));
+        System.setProperty("booking.journal.durability", "PER_COMMIT");
+
+        System.out.println("history,fullReplayMs,snapshotPlusTailMs,tailEntries");
+        for (long size : sizes) {
+            Path dir = Files.createTempDirectory("recovery-bench");
+            try {
+                run(dir, size);
+            } finally {
+                deleteRecursively(dir);
+            }
+        }
+    }
+
+    static void run(Path dir, long history) throws IOException {
+        Path journalPath = dir.resolve("bookings.journal");
+        try (BookingJournal journal = new BookingJournal(journalPath, BookingJournal.Durability.PER_COMMIT)) {
+            appendHistory(journal, 0, history);
+        }
+
+        // Cold start with no snapshot: the whole history is replayed
+        long start = System.nanoTime();
+        BookingSystem full = new BookingSystem(dir);
+        addCatalog(full);
+        full.recover();
+        long fullReplayNanos = System.nanoTime() - start;
+        full.close();
+
+        // More bookings arrive after the snapshot that close() left behind
+        FlightSnapshot snapshot = FlightSnapshot.read(dir.resolve("flights.snapshot"), new FlightTable());
+        try (BookingJournal journal = new BookingJournal(journalPath, BookingJournal.Durability.PER_COMMIT,
+                snapshot.journalOffset, snapshot.lastSeq, entry -> { })) {
+            appendHistory(journal, history, TAIL);
+        }
+
+        start = System.nanoTime();
+        BookingSystem restarted = new BookingSystem(dir);
+        if (!restarted.hasFlights()) addCatalog(restarted);
+        restarted.recover();
+        long snapshotNanos = System.nanoTime() - start;
+        restarted.close();
+
+        System.out.println(history + "," + fullReplayNanos / 1_000_000 + "," + snapshotNanos / 1_000_000 + "," + TAIL);
+    }
+
+    static void addCatalog(BookingSystem system) {
+        for (int i = 0; i < FLIGHTS; i++) {
+            system.addFlight("BM" + i, "Delhi", "Mumbai", 1_000_000, 5000, "08:00 AM");
+        }
+    }
+
+    static void appendHistory(BookingJournal journal, long first, long count) throws IOException {
+        List<BookingJournal.Entry> batch = new ArrayList<>(BATCH);
+        for (long i = first; i < first + count; i++) {
+            String flight = "BM" + (i % FLIGHTS);
+            String user = "user" + (i % 5000);
+            // Roughly one booking in ten is later cancelled
+            batch.add(i % 10 == 9
+                ? BookingJournal.Entry.cancellation(user, flight, "Passenger " + (i - 1), -1, 0)
+                : BookingJournal.Entry.booking(user, flight, "Passenger " + i));
+            if (batch.size() == BATCH) {
+                journal.commit(batch);
+                batch.clear();
+            }
+        }
+        journal.commit(batch);
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
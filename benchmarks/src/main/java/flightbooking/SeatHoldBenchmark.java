@@ -0,0 +1,67 @@
+package flightbooking;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Hold expiry in steady state: each operation adds one hold with a TTL of `outstanding` ticks and
+// advances one tick, which expires one hold, so the number outstanding stays constant. The heap is
+// the delay queue a scheduled task per hold would sit in.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class SeatHoldBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int outstanding;
+
+    private TimingWheel wheel;
+    private PriorityQueue<TimingWheel.Entry> heap;
+    private long heapTick;
+    private int expired;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        wheel = new TimingWheel(0);
+        heap = new PriorityQueue<>((a, b) -> Long.compare(a.deadline, b.deadline));
+        for (int i = 0; i < outstanding; i++) {
+            wheel.schedule(new TimingWheel.Entry(), i);
+            TimingWheel.Entry entry = new TimingWheel.Entry();
+            entry.deadline = i;
+            heap.add(entry);
+        }
+    }
+
+    @Benchmark
+    public int timingWheel() {
+        wheel.schedule(new TimingWheel.Entry(), wheel.currentTick() + outstanding);
+        wheel.advance(wheel.currentTick() + 1, entry -> expired++);
+        return expired;
+    }
+
+    @Benchmark
+    public int heap() {
+        TimingWheel.Entry added = new TimingWheel.Entry();
+        added.deadline = heapTick + outstanding;
+        heap.add(added);
+        while (!heap.isEmpty() && heap.peek().deadline <= heapTick) {
+            heap.poll();
+            expired++;
+        }
+        heapTick++;
+        return expired;
+    }
+}
@@ -0,0 +1,86 @@
+package flightbooking;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// bookSeat/cancelSeat on one shared flight under contention, and waitlist promotion on a full one
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeatInventoryBenchmark {
+    Flight popular;
+    Flight full;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Plenty of seats so the contended loop never runs out
+        FlightTable table = new FlightTable();
+        popular = table.add("BM-POP", "Delhi", "Mumbai", 1_000_000, 5000, "08:00 AM");
+        full = table.add("BM-FULL", "Delhi", "Goa", 1, 4600, "06:10 AM");
+        full.bookSeat(1);
+        for (int i = 0; i < 99; i++) {
+            full.waitlist().offer(new Waitlist.Entry("waiting " + i, List.of("waiting " + i), Waitlist.Tier.STANDARD, i));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int bookAndCancelUncontended() {
+        int booked = popular.bookSeat(1);
+        popular.cancelSeat();
+        return booked;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int bookAndCancelContended() {
+        int booked = popular.bookSeat(1);
+        popular.cancelSeat();
+        return booked;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public boolean reserveParty() {
+        boolean reserved = popular.tryReserveSeats(4);
+        if (reserved) popular.releaseSeats(4);
+        return reserved;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public int bookSingle() {
+        int booked = popular.bookSeat(1);
+        popular.cancelSeat();
+        return booked;
+    }
+
+    // A cancellation on a full flight promotes the head of the waitlist; the re-queue keeps it at steady state
+    @Benchmark
+    @Threads(1)
+    public int waitlistPromotion() {
+        full.cancelSeat();
+        int promoted = full.promoteWaitlisted().size();
+        full.waitlist().offer(new Waitlist.Entry("waiting", List.of("waiting"), Waitlist.Tier.STANDARD, 0));
+        return promoted;
+    }
+}
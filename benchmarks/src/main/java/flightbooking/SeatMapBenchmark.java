@@ -0,0 +1,63 @@
+package flightbooking;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Seating a party on a 400-seat aircraft that is already mostly full
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeatMapBenchmark {
+    @Param({"1", "4", "6"})
+    int party;
+
+    SeatMap seatMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        seatMap = new SeatMap(400);
+        // Leave scattered gaps so the search has to skip rows
+        for (int seat = 0; seat < 400; seat++) {
+            if (seat % 10 != 3 && seat % 10 != 7 && seat < 300) seatMap.occupy(seat);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Seats {
+        final int[] seats = new int[16];
+    }
+
+    private int allocateAndRelease(Seats holder) {
+        if (!seatMap.allocate(party, holder.seats)) return -1;
+        int first = holder.seats[0];
+        for (int i = 0; i < party; i++) seatMap.release(holder.seats[i]);
+        return first;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int allocateGroup(Seats holder) {
+        return allocateAndRelease(holder);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int allocateGroupContended(Seats holder) {
+        return allocateAndRelease(holder);
+    }
+}
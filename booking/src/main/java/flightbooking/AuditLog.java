@@ -0,0 +1,271 @@
+package flightbooking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Asynchronous audit trail of logins, bookings, cancellations and waitlist moves. Producers claim a slot in a
+// preallocated ring with one CAS and fill in a fixed-width record in place; a single writer thread
+// drains published slots in order and writes them to disk in batches, so recording an event never
+// waits on I/O. When the ring is full the event is dropped (and counted), or with the BLOCK policy
+// the producer waits for room.
+//
+// File layout: a 16-byte header (magic, version, record size) followed by 64-byte records of
+// timestamp, type, username, flight number, seat and a type-specific detail.
+// Dump a file with: java -cp booking/target/classes flightbooking.AuditLog [audit.log]
+class AuditLog implements AutoCloseable {
+    private static final int MAGIC = 0x41554454; // "AUDT"
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    static final int RECORD = 64;
+    private static final int USER_OFFSET = 10;
+    private static final int USER_BYTES = 30;
+    private static final int FLIGHT_OFFSET = 40;
+    private static final int FLIGHT_BYTES = 10;
+    private static final int SEAT_OFFSET = 50;
+    private static final int DETAIL_OFFSET = 54;
+    private static final int BATCH_RECORDS = 1024;
+
+    // The detail is the party size for WAITLIST and PROMOTE and unused otherwise
+    enum Type { LOGIN, LOGIN_FAILED, REGISTER, BOOK, CANCEL, WAITLIST, PROMOTE }
+
+    enum Overflow { DROP, BLOCK }
+
+    private final Path path;
+    private final Overflow overflow;
+    private final long maxFileBytes;
+    private final int keepFiles;
+
+    private final int mask;
+    private final byte[] ring;
+    // published[i] is seq + 1 once the record for seq is fully written to slot i
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // Owned by the writer thread
+    private FileChannel channel;
+    private long fileBytes;
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_RECORDS * RECORD);
+    private final Thread writer;
+    private final Thread shutdownHook;
+
+    AuditLog(Path path) throws IOException {
+        this(path, Integer.getInteger("booking.audit.capacity", 8192),
+            Overflow.valueOf(System.getProperty("booking.audit.overflow", "drop").toUpperCase()),
+            Long.getLong("booking.audit.max.bytes", 64L << 20), Integer.getInteger("booking.audit.files", 5));
+    }
+
+    // capacity is rounded up to a power of two
+    AuditLog(Path path, int capacity, Overflow overflow, long maxFileBytes, int keepFiles) throws IOException {
+        this.path = path;
+        this.overflow = overflow;
+        this.maxFileBytes = Math.max(maxFileBytes, HEADER + (long) BATCH_RECORDS * RECORD);
+        this.keepFiles = Math.max(keepFiles, 1);
+        int slots = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = slots - 1;
+        this.ring = new byte[slots * RECORD];
+        this.published = new AtomicLongArray(slots);
+        open();
+        writer = new Thread(this::drainLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // Events recorded just before exit still reach the file
+        shutdownHook = new Thread(this::close, "audit-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    boolean record(Type type, String username) {
+        return record(type, username, null, -1, 0);
+    }
+
+    // Returns false if the event was dropped because the ring was full or the log is closed
+    boolean record(Type type, String username, String flightNumber, int seat, long detail) {
+        long seq = claim();
+        if (seq < 0) return false;
+        int base = (int) (seq & mask) * RECORD;
+        putLong(base, System.currentTimeMillis());
+        ring[base + 8] = (byte) type.ordinal();
+        int userLength = putAscii(base + USER_OFFSET, USER_BYTES, username);
+        ring[base + 9] = (byte) userLength;
+        putAscii(base + FLIGHT_OFFSET, FLIGHT_BYTES, flightNumber);
+        putInt(base + SEAT_OFFSET, seat);
+        putLong(base + DETAIL_OFFSET, detail);
+        published.lazySet((int) (seq & mask), seq + 1);
+        return true;
+    }
+
+    private long claim() {
+        while (true) {
+            if (closed.get()) {
+                dropped.incrementAndGet();
+                return -1;
+            }
+            long seq = claimed.get();
+            if (seq - consumed > mask) {
+                if (overflow == Overflow.DROP) {
+                    dropped.incrementAndGet();
+                    return -1;
+                }
+                LockSupport.parkNanos(10_000);
+                continue;
+            }
+            if (claimed.compareAndSet(seq, seq + 1)) return seq;
+        }
+    }
+
+    // Copies up to length characters, replacing anything outside ASCII, and zero-pads the field
+    private int putAscii(int offset, int length, String value) {
+        int n = value == null ? 0 : Math.min(value.length(), length);
+        for (int i = 0; i < n; i++) {
+            char c = value.charAt(i);
+            ring[offset + i] = (byte) (c < 0x80 ? c : '?');
+        }
+        for (int i = n; i < length; i++) ring[offset + i] = 0;
+        return n;
+    }
+
+    private void putInt(int offset, int value) {
+        for (int i = 3; i >= 0; i--) {
+            ring[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private void putLong(int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            ring[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private void drainLoop() {
+        int idle = 0;
+        while (true) {
+            long next = consumed;
+            int n = 0;
+            batch.clear();
+            while (n < BATCH_RECORDS && published.get((int) (next & mask)) == next + 1) {
+                batch.put(ring, (int) (next & mask) * RECORD, RECORD);
+                next++;
+                n++;
+            }
+            if (n > 0) {
+                // The slots are copied, so producers may reuse them while the batch is written
+                consumed = next;
+                batch.flip();
+                write();
+                idle = 0;
+                continue;
+            }
+            if (closed.get() && claimed.get() == consumed) return;
+            // Back off to a 1 ms poll when idle so producers never have to wake the writer
+            LockSupport.parkNanos(Math.min(1_000_000L, 1_000L << Math.min(idle++, 10)));
+        }
+    }
+
+    private void write() {
+        try {
+            if (fileBytes + batch.remaining() > maxFileBytes) rotate();
+            while (batch.hasRemaining()) {
+                fileBytes += channel.write(batch);
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing audit log: " + e.getMessage());
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileBytes = channel.size();
+        if (fileBytes == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION).putInt(RECORD).putInt(0);
+            header.flip();
+            while (header.hasRemaining()) fileBytes += channel.write(header);
+        }
+    }
+
+    // audit.log becomes audit.log.1, older files shift up one and the oldest beyond keepFiles is deleted
+    private void rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        Files.deleteIfExists(rotated(keepFiles));
+        for (int i = keepFiles - 1; i >= 1; i--) {
+            if (Files.exists(rotated(i))) Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(path, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+
+    private Path rotated(int generation) {
+        return path.resolveSibling(path.getFileName() + "." + generation);
+    }
+
+    // Stops accepting events, writes everything already recorded and closes the file
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down; this is the hook
+        }
+        try {
+            writer.join();
+            channel.force(false);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println("Error closing audit log: " + e.getMessage());
+        }
+    }
+
+    // One record as a text line
+    static String format(ByteBuffer record) {
+        int base = record.position();
+        Type type = Type.values()[record.get(base + 8)];
+        String user = new String(record.array(), record.arrayOffset() + base + USER_OFFSET, record.get(base + 9), StandardCharsets.US_ASCII);
+        StringBuilder sb = new StringBuilder()
+            .append(Instant.ofEpochMilli(record.getLong(base))).append(' ').append(type).append(" user=").append(user);
+        int flightLength = 0;
+        while (flightLength < FLIGHT_BYTES && record.get(base + FLIGHT_OFFSET + flightLength) != 0) flightLength++;
+        if (flightLength > 0) {
+            sb.append(" flight=").append(new String(record.array(), record.arrayOffset() + base + FLIGHT_OFFSET, flightLength, StandardCharsets.US_ASCII));
+        }
+        int seat = record.getInt(base + SEAT_OFFSET);
+        if (seat >= 0) sb.append(" seat=").append(seat);
+        if (type == Type.WAITLIST || type == Type.PROMOTE) sb.append(" party=").append(record.getLong(base + DETAIL_OFFSET));
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "audit.log");
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (data.remaining() < HEADER || data.getInt(0) != MAGIC || data.getInt(8) != RECORD) {
+            System.err.println("Not an audit log: " + file);
+            System.exit(1);
+        }
+        for (int offset = HEADER; offset + RECORD <= data.limit(); offset += RECORD) {
+            data.position(offset);
+            System.out.println(format(data));
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package flightbooking;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+// Non-interactive booking engine. JSON-lines requests flow through
+// parse -> validate -> reserve -> persist -> respond, each stage a thread joined by a bounded
+// queue, so a slow stage pushes back on the reader instead of buffering without limit.
+//
+// Requests, one per line:
+//   {"id":"1","op":"book","user":"asha","flight":"AI101","passengers":[{"name":"Asha","age":34}],
+//    "fareClass":"saver","daysToDeparture":10,"waitlist":true,"priority":"standard"}
+//   {"id":"2","op":"cancel","user":"asha","flight":"AI101","passenger":"Asha (Passenger 1, Age 34)"}
+//   {"id":"3","op":"search","from":"Mumbai","to":"Goa","k":3,"objective":"cheapest","party":2}
+//
+// Run with: java -cp booking/target/classes flightbooking.BatchBookingPipeline [--data DIR] [--queue N] [input.jsonl|-] [output.jsonl|-]
+public class BatchBookingPipeline {
+    private static final int PERSIST_BATCH = 256;
+
+    static class Request {
+        final long line;
+        final String raw;
+        String id;
+        String op;
+        Map<String, Object> json;
+        String user;
+        Flight flight;
+        List<BookingSystem.Passenger> passengers;
+        int[] seatNumbers;
+        Fares.FareClass fareClass;
+        // Adult fare in paise, quoted before the seats are reserved
+        long fare;
+        boolean waitlisted;
+        String error;
+        final Map<String, Object> response = new LinkedHashMap<>();
+
+        Request(long line, String raw) {
+            this.line = line;
+            this.raw = raw;
+        }
+    }
+
+    private static final Request END = new Request(-1, null);
+
+    private final BookingSystem system;
+    private final int queueCapacity;
+    // Only touched by the persist stage
+    private final Set<String> loadedUsers = new HashSet<>();
+    private long processed;
+    private long failed;
+
+    BatchBookingPipeline(BookingSystem system, int queueCapacity) {
+        this.system = system;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dataDir = Paths.get("");
+        int queueCapacity = 1024;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--data")) {
+                dataDir = Paths.get(args[++i]);
+            } else if (args[i].equals("--queue")) {
+                queueCapacity = Integer.parseInt(args[++i]);
+            } else {
+                files.add(args[i]);
+            }
+        }
+        String input = files.size() > 0 ? files.get(0) : "-";
+        String output = files.size() > 1 ? files.get(1) : "-";
+
+        // Engine messages go to stderr so stdout carries only JSON responses
+        PrintStream stdout = System.out;
+        System.setOut(System.err);
+
+        BookingSystem system = new BookingSystem(dataDir);
+        if (!system.hasFlights()) {
+            Main.addDefaultFlights(system);
+        }
+        system.recover();
+
+        BatchBookingPipeline pipeline = new BatchBookingPipeline(system, queueCapacity);
+        long start = System.nanoTime();
+        try (BufferedReader reader = input.equals("-")
+                 ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                 : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8);
+             Writer writer = output.equals("-")
+                 ? new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8))
+                 : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+            pipeline.run(reader, writer);
+        } finally {
+            system.close();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Processed %d requests (%d failed) in %.3f s, %.0f requests/s%n",
+            pipeline.processed, pipeline.failed, seconds, pipeline.processed / seconds);
+    }
+
+    void run(BufferedReader reader, Writer writer) throws Exception {
+        BlockingQueue<Request> parseQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Request> validateQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Request> reserveQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Request> persistQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Request> respondQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+        List<Thread> stages = new ArrayList<>();
+        stages.add(stage("parse", parseQueue, validateQueue, this::parse));
+        stages.add(stage("validate", validateQueue, reserveQueue, this::validate));
+        stages.add(stage("reserve", reserveQueue, persistQueue, this::reserve));
+        stages.add(persistStage(persistQueue, respondQueue));
+        stages.add(respondStage(respondQueue, writer));
+        for (Thread stage : stages) stage.start();
+
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+                parseQueue.put(new Request(lineNumber, line));
+            }
+        }
+        parseQueue.put(END);
+        for (Thread stage : stages) stage.join();
+    }
+
+    private static Thread stage(String name, BlockingQueue<Request> in, BlockingQueue<Request> out, Consumer<Request> work) {
+        return new Thread(() -> {
+            try {
+                while (true) {
+                    Request request = in.take();
+                    if (request == END) {
+                        out.put(END);
+                        return;
+                    }
+                    if (request.error == null) {
+                        try {
+                            work.accept(request);
+                        } catch (RuntimeException e) {
+                            request.error = e.getMessage();
+                        }
+                    }
+                    out.put(request);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "pipeline-" + name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void parse(Request request) {
+        request.id = String.valueOf(request.line);
+        Object value;
+        try {
+            value = Json.parse(request.raw);
+        } catch (IllegalArgumentException e) {
+            request.error = "Malformed JSON: " + e.getMessage();
+            return;
+        }
+        if (!(value instanceof Map)) {
+            request.error = "Request must be a JSON object";
+            return;
+        }
+        request.json = (Map<String, Object>) value;
+        Object id = request.json.get("id");
+        if (id != null) request.id = id instanceof Double ? String.valueOf(((Double) id).longValue()) : id.toString();
+        request.op = stringField(request, "op");
+    }
+
+    private void validate(Request request) {
+        if (request.op == null) {
+            request.error = "Missing op";
+            return;
+        }
+        switch (request.op) {
+            case "book":
+                request.user = stringField(request, "user");
+                request.flight = flightField(request);
+                Object passengers = request.json.get("passengers");
+                if (request.user == null || request.flight == null || !(passengers instanceof List) || ((List<?>) passengers).isEmpty()) {
+                    request.error = "book needs user, a known flight and a non-empty passengers list";
+                    return;
+                }
+                request.passengers = new ArrayList<>();
+                for (Object item : (List<?>) passengers) {
+                    if (!(item instanceof Map)) {
+                        request.error = "Each passenger must be an object with name and age";
+                        return;
+                    }
+                    Object name = ((Map<?, ?>) item).get("name");
+                    Object age = ((Map<?, ?>) item).get("age");
+                    if (!(name instanceof String) || !(age instanceof Double) || (Double) age < 0) {
+                        request.error = "Each passenger must be an object with name and age";
+                        return;
+                    }
+                    request.passengers.add(new BookingSystem.Passenger((String) name, ((Double) age).intValue()));
+                }
+                try {
+                    request.fareClass = Fares.FareClass.parse(stringField(request, "fareClass"));
+                } catch (IllegalArgumentException e) {
+                    request.error = "fareClass must be saver, standard or flex";
+                }
+                break;
+            case "cancel":
+                request.user = stringField(request, "user");
+                request.flight = flightField(request);
+                if (request.user == null || request.flight == null || stringField(request, "passenger") == null) {
+                    request.error = "cancel needs user, a known flight and passenger";
+                }
+                break;
+            case "search":
+                if (stringField(request, "from") == null || stringField(request, "to") == null) {
+                    request.error = "search needs from and to";
+                }
+                break;
+            default:
+                request.error = "Unknown op: " + request.op;
+        }
+    }
+
+    private void reserve(Request request) {
+        if (request.op.equals("book")) {
+            request.seatNumbers = new int[BookingSystem.Passenger.seatsNeeded(request.passengers)];
+            request.fare = request.flight.getFare(request.fareClass, intField(request, "daysToDeparture", Fares.NO_DATE));
+            if (request.fare == Fares.UNAVAILABLE) {
+                request.error = request.fareClass + " fares are sold out on " + request.flight.flightNumber();
+                return;
+            }
+            if (request.flight.reserveSeats(request.seatNumbers.length, request.seatNumbers)) return;
+            if (Boolean.TRUE.equals(request.json.get("waitlist"))) {
+                List<String> party = BookingSystem.Passenger.seatedLabels(request.passengers);
+                Waitlist.Tier tier = "priority".equalsIgnoreCase(stringField(request, "priority"))
+                    ? Waitlist.Tier.PRIORITY : Waitlist.Tier.STANDARD;
+                if (system.joinWaitlist(request.flight, request.user, party, tier)) {
+                    request.waitlisted = true;
+                    request.response.put("flight", request.flight.flightNumber());
+                    request.response.put("waitlisted", party);
+                    return;
+                }
+                request.error = "Not enough seats available and the waitlist is full.";
+                return;
+            }
+            request.error = "Not enough seats available. Only " + request.flight.availableSeats() + " seats are available.";
+        } else if (request.op.equals("search")) {
+            // Searches are read-only, so they are answered here without touching persistence
+            String objective = stringField(request, "objective");
+            List<ItinerarySearch.Itinerary> itineraries = system.searchItineraries(
+                stringField(request, "from"), stringField(request, "to"), intField(request, "k", 3),
+                "fastest".equalsIgnoreCase(objective) ? ItinerarySearch.Objective.FASTEST : ItinerarySearch.Objective.CHEAPEST,
+                intField(request, "party", 1));
+            List<Object> results = new ArrayList<>();
+            for (ItinerarySearch.Itinerary itinerary : itineraries) {
+                Map<String, Object> result = new LinkedHashMap<>();
+                List<Object> legs = new ArrayList<>();
+                for (Flight leg : itinerary.legs) legs.add(leg.flightNumber());
+                result.put("legs", legs);
+                result.put("price", Fares.toRupees(itinerary.totalFare));
+                result.put("minutes", itinerary.totalMinutes());
+                results.add(result);
+            }
+            request.response.put("itineraries", results);
+        }
+    }
+
+    // Commits the bookings gathered so far; if the journal refuses them their seats are already
+    // released, so each request in the commit fails
+    private void confirm(Map<String, List<BookingSystem.BookingRecord>> pending, List<Request> requests) {
+        String error = null;
+        try {
+            if (!system.confirmBookings(pending)) error = "The booking could not be saved. Please try again.";
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+        }
+        if (error != null) {
+            for (Request request : requests) {
+                request.error = error;
+            }
+        }
+        pending.clear();
+        requests.clear();
+    }
+
+    // Drains whatever is queued so all bookings in the batch share one journal commit
+    private Thread persistStage(BlockingQueue<Request> in, BlockingQueue<Request> out) {
+        return new Thread(() -> {
+            List<Request> batch = new ArrayList<>(PERSIST_BATCH);
+            try {
+                while (true) {
+                    batch.add(in.take());
+                    in.drainTo(batch, PERSIST_BATCH - 1);
+                    boolean end = persist(batch);
+                    for (Request request : batch) {
+                        if (request != END) out.put(request);
+                    }
+                    batch.clear();
+                    if (end) {
+                        out.put(END);
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "pipeline-persist");
+    }
+
+    private boolean persist(List<Request> batch) {
+        boolean end = false;
+        Map<String, List<BookingSystem.BookingRecord>> pending = new LinkedHashMap<>();
+        List<Request> committing = new ArrayList<>();
+        Set<Flight> freed = new LinkedHashSet<>();
+        for (Request request : batch) {
+            if (request == END) {
+                end = true;
+                continue;
+            }
+            if (request.error != null || request.op.equals("search") || request.waitlisted) continue;
+            try {
+                persist(request, pending, committing, freed);
+            } catch (RuntimeException e) {
+                // One request that breaks must not stop the stage and strand everything queued behind it
+                if (request.op.equals("book") && !committing.contains(request)) {
+                    for (int seat : request.seatNumbers) {
+                        request.flight.cancelSeat(seat);
+                    }
+                    freed.add(request.flight);
+                }
+                request.error = e.getMessage();
+            }
+        }
+        confirm(pending, committing);
+        // Seats freed anywhere in the batch go to waiting parties in one pass per flight
+        for (Flight flight : freed) {
+            try {
+                system.promoteWaitlist(flight);
+            } catch (RuntimeException e) {
+                System.out.println("Error promoting waitlist on " + flight.flightNumber() + ": " + e.getMessage());
+            }
+        }
+        return end;
+    }
+
+    // Adds a booking to the batch commit, or cancels one after committing what is pending for the user
+    private void persist(Request request, Map<String, List<BookingSystem.BookingRecord>> pending, List<Request> committing,
+                         Set<Flight> freed) {
+        loadUser(request.user);
+        if (request.op.equals("book")) {
+            BookingSystem.PartyBooking booking = BookingSystem.PartyBooking.seated(request.flight, request.fare,
+                request.seatNumbers, request.passengers);
+            // Turned away here rather than failing the whole batch commit
+            boolean fits = BookingStore.fits(request.user);
+            for (BookingSystem.BookingRecord record : booking.records) {
+                fits &= BookingStore.fits(record.passengerName);
+            }
+            if (!fits) {
+                for (int seat : request.seatNumbers) {
+                    request.flight.cancelSeat(seat);
+                }
+                freed.add(request.flight);
+                request.error = "Names must be at most 65535 bytes";
+                return;
+            }
+            List<Object> booked = new ArrayList<>();
+            for (BookingSystem.BookingRecord record : booking.records) {
+                Map<String, Object> passenger = new LinkedHashMap<>();
+                passenger.put("passenger", record.passengerName);
+                passenger.put("seat", record.seatLabel());
+                booked.add(passenger);
+            }
+            request.response.put("flight", request.flight.flightNumber());
+            request.response.put("booked", booked);
+            request.response.put("fareClass", request.fareClass.name().toLowerCase());
+            request.response.put("totalCost", Fares.toRupees(booking.totalCost));
+            pending.computeIfAbsent(request.user, k -> new ArrayList<>()).addAll(booking.records);
+            committing.add(request);
+        } else {
+            // A cancel may refer to a booking made earlier in this batch
+            if (pending.containsKey(request.user)) {
+                confirm(pending, committing);
+            }
+            String passenger = stringField(request, "passenger");
+            if (system.cancelBooking(request.user, request.flight.flightNumber(), passenger, false) == null) {
+                request.error = "No booking for " + passenger + " on " + request.flight.flightNumber();
+            } else {
+                request.response.put("flight", request.flight.flightNumber());
+                request.response.put("cancelled", passenger);
+                freed.add(request.flight);
+            }
+        }
+    }
+
+    private void loadUser(String user) {
+        if (loadedUsers.add(user)) {
+            system.loadUserBookings(user);
+        }
+    }
+
+    private Thread respondStage(BlockingQueue<Request> in, Writer writer) {
+        return new Thread(() -> {
+            try {
+                while (true) {
+                    Request request = in.poll();
+                    if (request == null) {
+                        // Nothing waiting: push what we have before blocking
+                        writer.flush();
+                        request = in.take();
+                    }
+                    if (request == END) {
+                        writer.flush();
+                        return;
+                    }
+                    Map<String, Object> response = new LinkedHashMap<>();
+                    response.put("id", request.id);
+                    response.put("op", request.op);
+                    response.put("status", request.error != null ? "error" : request.waitlisted ? "waitlisted" : "ok");
+                    if (request.error != null) {
+                        response.put("error", request.error);
+                        failed++;
+                    } else {
+                        response.putAll(request.response);
+                    }
+                    processed++;
+                    writer.write(Json.write(response));
+                    writer.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "pipeline-respond");
+    }
+
+    private static String stringField(Request request, String name) {
+        Object value = request.json.get(name);
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static int intField(Request request, String name, int defaultValue) {
+        Object value = request.json.get(name);
+        return value instanceof Double ? ((Double) value).intValue() : defaultValue;
+    }
+
+    private Flight flightField(Request request) {
+        String flightNumber = stringField(request, "flight");
+        return flightNumber == null ? null : system.getFlight(flightNumber);
+    }
+}
@@ -0,0 +1,487 @@
+package flightbooking;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32;
+
+// Aggregates over the whole booking journal for operations: net revenue and cancellation rate per
+// route, load factor per flight and the busiest users. The journal is cut into line-aligned splits
+// that are memory-mapped one at a time and scanned in parallel on a fork/join pool. Lines are parsed
+// in place, without building strings, into primitive accumulators: dense arrays per flight id and
+// an open-addressed table per user keyed by a 64-bit hash of the name. Memory therefore grows with
+// the catalog and the user base but not with the length of the history; each worker holds one
+// set of accumulators and the splits it maps are paged in by the OS.
+//
+// Users are told apart by their hash, so two names in a history of billions could in principle be
+// counted together. Lines that fail their CRC, such as a torn tail, are skipped and counted.
+// Revenue is net of refunds: a cancellation journals the fare it gives back. Cancellations without a
+// fare, written before refunds were journaled or of bookings whose fare was never known, are counted
+// and reported as not netted out.
+//
+// Run with: java -cp booking/target/classes flightbooking.BookingAnalytics [--data DIR] [--top N] [--threads N]
+class BookingAnalytics {
+    private static final long SPLIT_BYTES = Long.getLong("booking.analytics.split.mb", 64) << 20;
+    private static final int MAX_FIELDS = 8;
+    // Names are read back from the journal for at most this many users
+    private static final int REPORTED_USERS = 100;
+
+    private final FlightTable table;
+    private final int flights;
+    // Flight number hash to flight id, open addressing; a zero key is empty
+    private final long[] flightKeys;
+    private final int[] flightIds;
+
+    BookingAnalytics(FlightTable table) {
+        this.table = table;
+        this.flights = table.size();
+        int capacity = Integer.highestOneBit(Math.max(flights, 1) * 2 - 1) << 1;
+        flightKeys = new long[capacity];
+        flightIds = new int[capacity];
+        for (int id = 0; id < flights; id++) {
+            byte[] number = BookingJournal.escape(table.get(id).flightNumber()).getBytes(StandardCharsets.UTF_8);
+            long key = hash(ByteBuffer.wrap(number), 0, number.length);
+            int slot = (int) key & (capacity - 1);
+            while (flightKeys[slot] != 0 && flightKeys[slot] != key) slot = (slot + 1) & (capacity - 1);
+            flightKeys[slot] = key;
+            flightIds[slot] = id;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dataDir = Paths.get("");
+        int top = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals("--data")) dataDir = Paths.get(args[++i]);
+            else if (args[i].equals("--top")) top = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--threads")) threads = Integer.parseInt(args[++i]);
+        }
+        FlightTable table = new FlightTable();
+        if (FlightSnapshot.read(dataDir.resolve("flights.snapshot"), table) == null) {
+            System.out.println("No flight snapshot in " + dataDir.toAbsolutePath() + "; routes and load factors are unavailable.");
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            System.out.print(new BookingAnalytics(table).analyze(dataDir.resolve("bookings.journal"), pool).format(top));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Totals for one worker's share of the journal, merged pairwise as the fork/join tasks complete
+    private final class Accumulator {
+        // Indexed by flight id; the last slot collects flights missing from the catalog
+        final long[] booked = new long[flights + 1];
+        final long[] cancelled = new long[flights + 1];
+        final long[] revenue = new long[flights + 1];
+        final UserTable users = new UserTable();
+        long lines;
+        long corrupt;
+        long unrefunded;
+
+        void add(Accumulator other) {
+            for (int i = 0; i <= flights; i++) {
+                booked[i] += other.booked[i];
+                cancelled[i] += other.cancelled[i];
+                revenue[i] += other.revenue[i];
+            }
+            users.addAll(other.users);
+            lines += other.lines;
+            corrupt += other.corrupt;
+            unrefunded += other.unrefunded;
+        }
+    }
+
+    // Open-addressed per-user counters in parallel primitive arrays
+    private static final class UserTable {
+        long[] keys = new long[1024];
+        long[] booked = new long[1024];
+        long[] cancelled = new long[1024];
+        long[] revenue = new long[1024];
+        // Where the name first appeared in the journal, to print it without keeping a copy
+        long[] nameOffsets = new long[1024];
+        int[] nameLengths = new int[1024];
+        int size;
+
+        int slot(long key, long nameOffset, int nameLength) {
+            int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            while (keys[slot] != 0) {
+                if (keys[slot] == key) return slot;
+                slot = (slot + 1) & mask;
+            }
+            if (size * 2 >= keys.length) {
+                grow();
+                return slot(key, nameOffset, nameLength);
+            }
+            keys[slot] = key;
+            nameOffsets[slot] = nameOffset;
+            nameLengths[slot] = nameLength;
+            size++;
+            return slot;
+        }
+
+        void addAll(UserTable other) {
+            for (int i = 0; i < other.keys.length; i++) {
+                if (other.keys[i] == 0) continue;
+                int slot = slot(other.keys[i], other.nameOffsets[i], other.nameLengths[i]);
+                booked[slot] += other.booked[i];
+                cancelled[slot] += other.cancelled[i];
+                revenue[slot] += other.revenue[i];
+            }
+        }
+
+        private void grow() {
+            UserTable old = new UserTable();
+            old.keys = keys;
+            old.booked = booked;
+            old.cancelled = cancelled;
+            old.revenue = revenue;
+            old.nameOffsets = nameOffsets;
+            old.nameLengths = nameLengths;
+            int capacity = keys.length * 2;
+            keys = new long[capacity];
+            booked = new long[capacity];
+            cancelled = new long[capacity];
+            revenue = new long[capacity];
+            nameOffsets = new long[capacity];
+            nameLengths = new int[capacity];
+            size = 0;
+            addAll(old);
+        }
+    }
+
+    // One line-aligned range of the journal
+    private static final class Split {
+        final long start;
+        final long end;
+
+        Split(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    Report analyze(Path journal) throws IOException {
+        return analyze(journal, ForkJoinPool.commonPool());
+    }
+
+    Report analyze(Path journal, ForkJoinPool pool) throws IOException {
+        long started = System.nanoTime();
+        if (!Files.exists(journal)) return new Report(new Accumulator(), null, 0, 0);
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+            // Bookings appended while the scan runs are left for the next one
+            long size = channel.size();
+            List<Split> splits = splits(channel, size);
+            int leaf = Math.max(1, splits.size() / (4 * pool.getParallelism()));
+            Accumulator total = pool.invoke(new ScanTask(channel, splits, 0, splits.size(), leaf));
+            return new Report(total, channel, size, System.nanoTime() - started);
+        }
+    }
+
+    private final class ScanTask extends RecursiveTask<Accumulator> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final List<Split> splits;
+        private final int from;
+        private final int to;
+        private final int leaf;
+
+        ScanTask(FileChannel channel, List<Split> splits, int from, int to, int leaf) {
+            this.channel = channel;
+            this.splits = splits;
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (to - from <= leaf) {
+                Accumulator accumulator = new Accumulator();
+                for (int i = from; i < to; i++) {
+                    Split split = splits.get(i);
+                    try {
+                        scan(channel.map(FileChannel.MapMode.READ_ONLY, split.start, split.end - split.start), split.start, accumulator);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return accumulator;
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask right = new ScanTask(channel, splits, mid, to, leaf);
+            right.fork();
+            Accumulator left = new ScanTask(channel, splits, from, mid, leaf).compute();
+            left.add(right.join());
+            return left;
+        }
+    }
+
+    // Cuts the file every SPLIT_BYTES, moving each cut forward to just past the next newline
+    private static List<Split> splits(FileChannel channel, long size) throws IOException {
+        List<Split> splits = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(1 << 16);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(start + SPLIT_BYTES, size);
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                if (read <= 0) break;
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+            end = Math.min(end, size);
+            splits.add(new Split(start, end));
+            start = end;
+        }
+        return splits;
+    }
+
+    private void scan(MappedByteBuffer buffer, long base, Accumulator accumulator) {
+        ByteBuffer view = buffer.duplicate();
+        CRC32 crc = new CRC32();
+        int[] tabs = new int[MAX_FIELDS - 1];
+        int limit = buffer.limit();
+        int position = 0;
+        while (position < limit) {
+            int lineStart = position;
+            int fields = 1;
+            while (position < limit) {
+                byte b = buffer.get(position);
+                if (b == '\n') break;
+                if (b == '\t') {
+                    if (fields < MAX_FIELDS) tabs[fields - 1] = position;
+                    fields++;
+                }
+                position++;
+            }
+            // A last line with no newline is a write still in progress or torn by a crash
+            if (position == limit) {
+                accumulator.corrupt++;
+                break;
+            }
+            int lineEnd = position++;
+            accumulator.lines++;
+            if (fields < 6 || fields > MAX_FIELDS || tabs[2] - tabs[1] != 2 || !crcMatches(view, crc, lineStart, tabs, lineEnd)) {
+                accumulator.corrupt++;
+                continue;
+            }
+            byte type = buffer.get(tabs[1] + 1);
+            int flight = flightId(hash(buffer, tabs[3] + 1, tabs[4]));
+            int userStart = tabs[2] + 1;
+            int user = accumulator.users.slot(hash(buffer, userStart, tabs[3]), base + userStart, tabs[3] - userStart);
+            if (type == BookingJournal.BOOK) {
+                long fare = fields == 8 ? parseLong(buffer, tabs[6] + 1, lineEnd) : 0;
+                accumulator.booked[flight]++;
+                accumulator.revenue[flight] += fare;
+                accumulator.users.booked[user]++;
+                accumulator.users.revenue[user] += fare;
+            } else if (type == BookingJournal.CANCEL) {
+                long refund = fields == 8 ? parseLong(buffer, tabs[6] + 1, lineEnd) : 0;
+                if (fields < 8) accumulator.unrefunded++;
+                accumulator.cancelled[flight]++;
+                accumulator.revenue[flight] -= refund;
+                accumulator.users.cancelled[user]++;
+                accumulator.users.revenue[user] -= refund;
+            }
+        }
+    }
+
+    // The CRC covers the sequence number and everything after the CRC field
+    private static boolean crcMatches(ByteBuffer view, CRC32 crc, int lineStart, int[] tabs, int lineEnd) {
+        view.clear();
+        long expected = 0;
+        for (int i = tabs[0] + 1; i < tabs[1]; i++) {
+            int digit = Character.digit(view.get(i), 16);
+            if (digit < 0) return false;
+            expected = expected << 4 | digit;
+        }
+        crc.reset();
+        view.position(lineStart).limit(tabs[0]);
+        crc.update(view);
+        view.clear();
+        view.position(tabs[1]).limit(lineEnd);
+        crc.update(view);
+        return crc.getValue() == expected;
+    }
+
+    private int flightId(long key) {
+        int mask = flightKeys.length - 1;
+        int slot = (int) key & mask;
+        while (flightKeys[slot] != 0) {
+            if (flightKeys[slot] == key) return flightIds[slot];
+            slot = (slot + 1) & mask;
+        }
+        return flights;
+    }
+
+    // FNV-1a with a final mix, never zero
+    private static long hash(ByteBuffer buffer, int from, int to) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            h ^= buffer.get(i) & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h != 0 ? h : 1;
+    }
+
+    private static long parseLong(ByteBuffer buffer, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) return 0;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // The merged totals, with the names of the top users read back from the journal
+    final class Report {
+        final long lines;
+        final long corrupt;
+        final long bookings;
+        final long cancellations;
+        // Net of refunds, except for cancellations journaled without a fare
+        final long revenuePaise;
+        final long unrefunded;
+        final long bytes;
+        final long elapsedNanos;
+        private final Accumulator totals;
+        private final Map<Long, String> userNames = new HashMap<>();
+
+        private Report(Accumulator totals, FileChannel channel, long bytes, long elapsedNanos) throws IOException {
+            this.totals = totals;
+            this.lines = totals.lines;
+            this.corrupt = totals.corrupt;
+            this.unrefunded = totals.unrefunded;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+            long booked = 0, cancelled = 0, revenue = 0;
+            for (int i = 0; i <= flights; i++) {
+                booked += totals.booked[i];
+                cancelled += totals.cancelled[i];
+                revenue += totals.revenue[i];
+            }
+            this.bookings = booked;
+            this.cancellations = cancelled;
+            this.revenuePaise = revenue;
+            if (channel != null) {
+                UserTable users = totals.users;
+                for (int slot : topUsers(REPORTED_USERS)) {
+                    ByteBuffer name = ByteBuffer.allocate(users.nameLengths[slot]);
+                    channel.read(name, users.nameOffsets[slot]);
+                    userNames.put(users.keys[slot], BookingJournal.unescape(new String(name.array(), 0, name.position(), StandardCharsets.UTF_8)));
+                }
+            }
+        }
+
+        private List<Integer> topUsers(int n) {
+            UserTable users = totals.users;
+            List<Integer> slots = new ArrayList<>(users.size);
+            for (int i = 0; i < users.keys.length; i++) {
+                if (users.keys[i] != 0) slots.add(i);
+            }
+            slots.sort(Comparator.comparingLong((Integer i) -> users.booked[i]).reversed());
+            return slots.size() > n ? slots.subList(0, n) : slots;
+        }
+
+        double cancellationRate() {
+            return bookings == 0 ? 0 : (double) cancellations / bookings;
+        }
+
+        String format(int top) {
+            StringBuilder sb = new StringBuilder();
+            double seconds = elapsedNanos / 1e9;
+            sb.append(String.format("Journal: %d lines, %.1f MB in %.2f s (%.0f MB/s)%s%n", lines, bytes / 1e6, seconds,
+                seconds > 0 ? bytes / 1e6 / seconds : 0, corrupt > 0 ? ", " + corrupt + " damaged lines skipped" : ""));
+            sb.append(String.format("Bookings: %d | Cancellations: %d (%.1f%%) | Net revenue: %s%n", bookings, cancellations,
+                100 * cancellationRate(), Fares.format(revenuePaise)));
+            if (unrefunded > 0) {
+                sb.append(String.format("%d cancellations have no journaled refund and are not netted out%n", unrefunded));
+            }
+
+            // Routes are folded from the per-flight totals, which the catalog bounds
+            Map<Long, long[]> routes = new HashMap<>();
+            for (int id = 0; id < flights; id++) {
+                if (totals.booked[id] == 0 && totals.cancelled[id] == 0) continue;
+                Flight flight = table.get(id);
+                long[] route = routes.computeIfAbsent(SearchFacets.routeKey(flight.sourceId(), flight.destinationId()), k -> new long[3]);
+                route[0] += totals.booked[id];
+                route[1] += totals.cancelled[id];
+                route[2] += totals.revenue[id];
+            }
+            List<Map.Entry<Long, long[]>> byRevenue = new ArrayList<>(routes.entrySet());
+            byRevenue.sort(Comparator.comparingLong((Map.Entry<Long, long[]> e) -> e.getValue()[2]).reversed());
+            sb.append(String.format("%nNet revenue by route (top %d of %d):%n", Math.min(top, byRevenue.size()), byRevenue.size()));
+            for (Map.Entry<Long, long[]> route : byRevenue.subList(0, Math.min(top, byRevenue.size()))) {
+                long[] sums = route.getValue();
+                sb.append(String.format("%-12s -> %-12s Revenue: %14s | Bookings: %8d | Cancelled: %5.1f%%%n",
+                    table.cityName((int) (route.getKey() >>> 32)), table.cityName((int) (long) route.getKey()),
+                    Fares.format(sums[2]), sums[0], sums[0] == 0 ? 0 : 100.0 * sums[1] / sums[0]));
+            }
+            if (totals.booked[flights] > 0 || totals.cancelled[flights] > 0) {
+                sb.append(String.format("Flights not in the catalog: %d bookings, %d cancellations, %s%n",
+                    totals.booked[flights], totals.cancelled[flights], Fares.format(totals.revenue[flights])));
+            }
+
+            // Seats still held by the journal's bookings, against each flight's capacity
+            Integer[] ids = new Integer[flights];
+            for (int id = 0; id < flights; id++) ids[id] = id;
+            Arrays.sort(ids, Comparator.comparingDouble((Integer id) -> -loadFactor(id)));
+            int shown = (int) Math.min(top, Arrays.stream(ids).filter(id -> totals.booked[id] > 0).count());
+            sb.append(String.format("%nLoad factor by flight (top %d of %d):%n", shown, flights));
+            for (int i = 0; i < shown; i++) {
+                Flight flight = table.get(ids[i]);
+                sb.append(String.format("%-8s %-12s -> %-12s Load: %5.1f%% | Booked: %d | Cancelled: %d%n", flight.flightNumber(),
+                    flight.source(), flight.destination(), 100 * loadFactor(ids[i]), totals.booked[ids[i]], totals.cancelled[ids[i]]));
+            }
+
+            List<Integer> users = topUsers(Math.min(top, REPORTED_USERS));
+            sb.append(String.format("%nTop users by bookings (%d of %d):%n", users.size(), totals.users.size));
+            UserTable counts = totals.users;
+            for (int slot : users) {
+                sb.append(String.format("%-16s Bookings: %8d | Cancelled: %6d | Spent: %s%n", userNames.get(counts.keys[slot]),
+                    counts.booked[slot], counts.cancelled[slot], Fares.format(counts.revenue[slot])));
+            }
+            return sb.toString();
+        }
+
+        private double loadFactor(int id) {
+            int seats = table.get(id).totalSeats();
+            long held = totals.booked[id] - totals.cancelled[id];
+            return seats == 0 ? 0 : (double) Math.max(held, 0) / seats;
+        }
+    }
+}
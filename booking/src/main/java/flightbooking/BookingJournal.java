@@ -0,0 +1,434 @@
+package flightbooking;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Append-only booking journal. Each line is "seq<TAB>crc32<TAB>type<TAB>user<TAB>flight<TAB>passenger[<TAB>seat[<TAB>fare]]",
+// the fare being what a booking paid or a cancellation refunded, in paise. It is left out when not
+// known, so a cancellation without it refunded an amount the journal does not have.
+// Concurrent commits are batched by a single writer thread into one write and one fsync.
+// A failed write stops the journal: the entries already applied in memory are no longer backed by
+// the file, so every later commit fails and no snapshot can be taken until a restart replays the
+// durable prefix.
+class BookingJournal implements Closeable {
+    static final char BOOK = 'B';
+    static final char CANCEL = 'C';
+
+    enum Durability {
+        // Every commit is written and fsynced on the caller's thread
+        PER_COMMIT,
+        // Callers wait while the writer thread group-commits everything queued so far
+        BATCHED,
+        // Callers return as soon as the entry is queued; the writer still fsyncs each batch
+        ASYNC
+    }
+
+    static class Entry {
+        final long seq;
+        final char type;
+        final String username;
+        final String flightNumber;
+        final String passengerName;
+        // Seat index on the flight, or -1 when none was assigned
+        final int seat;
+        // Fare paid by a booking in paise, or 0 when not recorded
+        final long farePaise;
+
+        Entry(long seq, char type, String username, String flightNumber, String passengerName, int seat) {
+            this(seq, type, username, flightNumber, passengerName, seat, 0);
+        }
+
+        Entry(long seq, char type, String username, String flightNumber, String passengerName, int seat, long farePaise) {
+            this.seq = seq;
+            this.type = type;
+            this.username = username;
+            this.flightNumber = flightNumber;
+            this.passengerName = passengerName;
+            this.seat = seat;
+            this.farePaise = farePaise;
+        }
+
+        static Entry booking(String username, String flightNumber, String passengerName) {
+            return booking(username, flightNumber, passengerName, -1);
+        }
+
+        static Entry booking(String username, String flightNumber, String passengerName, int seat) {
+            return new Entry(0, BOOK, username, flightNumber, passengerName, seat);
+        }
+
+        static Entry booking(String username, String flightNumber, String passengerName, int seat, long farePaise) {
+            return new Entry(0, BOOK, username, flightNumber, passengerName, seat, farePaise);
+        }
+
+        static Entry cancellation(String username, String flightNumber, String passengerName, int seat, long farePaise) {
+            return new Entry(0, CANCEL, username, flightNumber, passengerName, seat, farePaise);
+        }
+
+        // The same entry as committed under a sequence number
+        Entry withSeq(long seq) {
+            return new Entry(seq, type, username, flightNumber, passengerName, seat, farePaise);
+        }
+    }
+
+    private static class Pending {
+        final byte[] bytes;
+        // File offset just past these bytes
+        final long end;
+        final CompletableFuture<Void> done;
+
+        Pending(byte[] bytes, long end, CompletableFuture<Void> done) {
+            this.bytes = bytes;
+            this.end = end;
+            this.done = done;
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Durability durability;
+    private final Object lock = new Object();
+    // Guarded by lock
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    private long nextSeq;
+    private long nextOffset;
+    // End of the bytes written and fsynced; nextOffset runs ahead of it while batches are queued
+    private long durableOffset;
+    private IOException failure;
+    private boolean closed;
+    private Consumer<Entry> commitListener = entry -> { };
+    private final Thread writer;
+
+    BookingJournal(Path path, Durability durability) throws IOException {
+        this(path, durability, 0, 0, entry -> { });
+    }
+
+    // Opens the journal for appends after replaying only the tail that starts at startOffset.
+    // startOffset and lastSeq come from a snapshot; pass 0 for both to replay the whole file.
+    BookingJournal(Path path, Durability durability, long startOffset, long lastSeq, Consumer<Entry> tail) throws IOException {
+        this.path = path;
+        this.durability = durability;
+        long[] seq = {lastSeq};
+        long validLength = replay(path, startOffset, lastSeq, entry -> {
+            seq[0] = entry.seq;
+            tail.accept(entry);
+        });
+        this.nextSeq = seq[0] + 1;
+        this.nextOffset = validLength;
+        this.durableOffset = validLength;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() < startOffset) {
+            channel.close();
+            throw new IOException("Booking journal is shorter than its snapshot position");
+        }
+        // Drop a torn or corrupt tail left by a crash mid-write
+        if (channel.size() > validLength) {
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+
+        if (durability == Durability.PER_COMMIT) {
+            writer = null;
+        } else {
+            writer = new Thread(this::writeLoop, "booking-journal-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    static Durability durabilityFromProperty() {
+        String mode = System.getProperty("booking.journal.durability", Durability.BATCHED.name());
+        return Durability.valueOf(mode.trim().toUpperCase());
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    // Called under the journal lock for each entry as it is assigned its sequence number
+    void setCommitListener(Consumer<Entry> listener) {
+        synchronized (lock) {
+            commitListener = listener;
+        }
+    }
+
+    // Runs capture while no commit can interleave, waits until everything it saw is on disk, and
+    // returns the {lastSeq, endOffset} it is consistent with
+    long[] checkpoint(Runnable capture) throws IOException {
+        long[] position;
+        synchronized (lock) {
+            checkHealthy();
+            capture.run();
+            position = new long[] {nextSeq - 1, nextOffset};
+        }
+        awaitDurable(position[1]);
+        return position;
+    }
+
+    // Blocks until every entry committed so far has been written and fsynced
+    void flush() throws IOException {
+        long target;
+        synchronized (lock) {
+            if (closed) return;
+            target = nextOffset;
+        }
+        awaitDurable(target);
+    }
+
+    private void awaitDurable(long offset) throws IOException {
+        synchronized (lock) {
+            while (durableOffset < offset && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted waiting for the booking journal");
+                }
+            }
+            checkHealthy();
+        }
+    }
+
+    // Guarded by lock
+    private void checkHealthy() throws IOException {
+        if (failure != null) {
+            throw new IOException("Booking journal stopped after a failed write; restart to recover", failure);
+        }
+    }
+
+    long commit(Entry entry) throws IOException {
+        return commit(List.of(entry));
+    }
+
+    // Commits all entries together; they get consecutive sequence numbers and share one fsync.
+    // Returns the sequence number of the first.
+    long commit(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) return nextSeq();
+        CompletableFuture<Void> done;
+        long firstSeq;
+        synchronized (lock) {
+            if (closed) throw new IOException("Booking journal is closed");
+            checkHealthy();
+            firstSeq = nextSeq;
+            ByteArrayOutputStream batch = new ByteArrayOutputStream(entries.size() * 96);
+            for (Entry entry : entries) {
+                byte[] line = encode(nextSeq++, entry);
+                batch.write(line, 0, line.length);
+                commitListener.accept(entry);
+            }
+            nextOffset += batch.size();
+            if (durability == Durability.PER_COMMIT) {
+                try {
+                    writeFully(ByteBuffer.wrap(batch.toByteArray()));
+                    channel.force(false);
+                } catch (IOException e) {
+                    fail(e);
+                    throw e;
+                }
+                durableOffset = nextOffset;
+                return firstSeq;
+            }
+            done = new CompletableFuture<>();
+            pending.add(new Pending(batch.toByteArray(), nextOffset, done));
+            lock.notifyAll();
+        }
+        if (durability == Durability.BATCHED) {
+            try {
+                done.join();
+            } catch (RuntimeException e) {
+                throw new IOException("Booking journal write failed", e.getCause());
+            }
+        }
+        return firstSeq;
+    }
+
+    // Sequence number the next committed entry will get
+    long nextSeq() {
+        synchronized (lock) {
+            return nextSeq;
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (true) {
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) return;
+                batch.addAll(pending);
+                pending.clear();
+            }
+
+            IOException failed;
+            synchronized (lock) {
+                failed = failure;
+            }
+            if (failed == null) {
+                int size = 0;
+                for (Pending p : batch) size += p.bytes.length;
+                ByteBuffer buffer = ByteBuffer.allocate(size);
+                for (Pending p : batch) buffer.put(p.bytes);
+                buffer.flip();
+                try {
+                    writeFully(buffer);
+                    channel.force(false);
+                } catch (IOException e) {
+                    System.out.println("Error writing booking journal: " + e.getMessage());
+                    synchronized (lock) {
+                        fail(e);
+                    }
+                    failed = e;
+                }
+            }
+            if (failed == null) {
+                synchronized (lock) {
+                    durableOffset = batch.get(batch.size() - 1).end;
+                    lock.notifyAll();
+                }
+                for (Pending p : batch) p.done.complete(null);
+            } else {
+                // Entries queued behind a failed write fail with it
+                for (Pending p : batch) p.done.completeExceptionally(failed);
+            }
+            batch.clear();
+        }
+    }
+
+    // Guarded by lock. Cuts the file back to its durable end, so a partly written batch cannot be
+    // replayed, and wakes anyone waiting for durability.
+    private void fail(IOException e) {
+        if (failure == null) failure = e;
+        try {
+            channel.truncate(durableOffset);
+            channel.position(durableOffset);
+        } catch (IOException truncateFailed) {
+            e.addSuppressed(truncateFailed);
+        }
+        lock.notifyAll();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Waits for queued entries to reach disk, then closes the file
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) return;
+            closed = true;
+            lock.notifyAll();
+        }
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.close();
+    }
+
+    // Feeds every intact entry to the consumer in order and returns the byte length of the valid prefix.
+    // Replay stops at the first line that is torn, fails its checksum or breaks the sequence.
+    static long replay(Path path, Consumer<Entry> consumer) throws IOException {
+        return replay(path, 0, 0, consumer);
+    }
+
+    // Replays from a byte offset whose preceding entry had sequence number lastSeq
+    static long replay(Path path, long fromOffset, long lastSeq, Consumer<Entry> consumer) throws IOException {
+        if (!Files.exists(path)) return 0;
+        long validLength = fromOffset;
+        long expectedSeq = fromOffset > 0 ? lastSeq + 1 : -1;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            in.skipNBytes(Math.min(fromOffset, Files.size(path)));
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                Entry entry = decode(line.toString(StandardCharsets.UTF_8));
+                if (entry == null || (expectedSeq != -1 && entry.seq != expectedSeq)) break;
+                consumer.accept(entry);
+                validLength += line.size() + 1;
+                expectedSeq = entry.seq + 1;
+                line.reset();
+            }
+        }
+        return validLength;
+    }
+
+    static byte[] encode(long seq, Entry entry) {
+        String body = seq + "\t" + entry.type + "\t" + escape(entry.username) + "\t" +
+            escape(entry.flightNumber) + "\t" + escape(entry.passengerName) +
+            (entry.farePaise > 0 ? "\t" + entry.seat + "\t" + entry.farePaise : entry.seat >= 0 ? "\t" + entry.seat : "");
+        byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(bodyBytes);
+        String line = seq + "\t" + String.format("%08x", crc.getValue()) +
+            body.substring(body.indexOf('\t')) + "\n";
+        return line.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Entry decode(String line) {
+        String[] parts = line.split("\t", -1);
+        if (parts.length < 6 || parts.length > 8 || parts[2].length() != 1) return null;
+        try {
+            long seq = Long.parseLong(parts[0]);
+            int tab = line.indexOf('\t');
+            String body = parts[0] + line.substring(line.indexOf('\t', tab + 1));
+            CRC32 crc = new CRC32();
+            crc.update(body.getBytes(StandardCharsets.UTF_8));
+            if (crc.getValue() != Long.parseLong(parts[1], 16)) return null;
+            int seat = parts.length >= 7 ? Integer.parseInt(parts[6]) : -1;
+            long fare = parts.length == 8 ? Long.parseLong(parts[7]) : 0;
+            return new Entry(seq, parts[2].charAt(0), unescape(parts[3]), unescape(parts[4]), unescape(parts[5]), seat, fare);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) return value;
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package flightbooking;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Registers the metrics of one BookingSystem with the platform MBean server, keyed by its data directory
+class BookingMetrics implements BookingMetricsMXBean {
+    private final List<Flight> flights;
+    private ObjectName name;
+
+    BookingMetrics(List<Flight> flights) {
+        this.flights = flights;
+    }
+
+    void register(String dataDir) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName candidate = new ObjectName("flightbooking:type=BookingMetrics,dir=" + ObjectName.quote(dataDir));
+            if (!server.isRegistered(candidate)) {
+                server.registerMBean(this, candidate);
+                name = candidate;
+            }
+        } catch (JMException e) {
+            System.out.println("Error registering metrics: " + e.getMessage());
+        }
+    }
+
+    void unregister() {
+        if (name == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            System.out.println("Error unregistering metrics: " + e.getMessage());
+        }
+        name = null;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("seatsBooked", Metrics.SEATS_BOOKED.sum());
+        counters.put("seatsCancelled", Metrics.SEATS_CANCELLED.sum());
+        counters.put("waitlistJoins", Metrics.WAITLIST_JOINS.sum());
+        counters.put("waitlistPromotions", Metrics.PROMOTIONS.sum());
+        counters.put("seatHoldsExpired", Metrics.HOLDS_EXPIRED.sum());
+        for (LatencyHistogram histogram : Metrics.HISTOGRAMS) {
+            counters.put(histogram.name + ".count", histogram.count());
+        }
+        return counters;
+    }
+
+    @Override
+    public Map<String, Double> getLatencyMicros() {
+        Map<String, Double> latencies = new LinkedHashMap<>();
+        for (LatencyHistogram histogram : Metrics.HISTOGRAMS) {
+            latencies.put(histogram.name + ".p50", histogram.percentile(0.50) / 1000.0);
+            latencies.put(histogram.name + ".p99", histogram.percentile(0.99) / 1000.0);
+            latencies.put(histogram.name + ".p999", histogram.percentile(0.999) / 1000.0);
+            latencies.put(histogram.name + ".max", histogram.max() / 1000.0);
+            latencies.put(histogram.name + ".mean", histogram.mean() / 1000.0);
+        }
+        return latencies;
+    }
+
+    @Override
+    public Map<String, Double> getLoadFactors() {
+        Map<String, Double> loads = new LinkedHashMap<>();
+        for (Flight flight : snapshot()) {
+            loads.put(flight.flightNumber(), Metrics.loadFactor(flight));
+        }
+        return loads;
+    }
+
+    @Override
+    public Map<String, Integer> getWaitlistDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        for (Flight flight : snapshot()) {
+            depths.put(flight.flightNumber(), flight.getWaitlistSize());
+        }
+        return depths;
+    }
+
+    @Override
+    public String dump() {
+        return Metrics.dump(snapshot());
+    }
+
+    // Copied the way snapshots copy it, so the catalog can keep growing while a client reads
+    private List<Flight> snapshot() {
+        return new ArrayList<>(flights);
+    }
+}
@@ -0,0 +1,17 @@
+package flightbooking;
+
+import java.util.Map;
+
+// JMX view of Metrics and the live per-flight gauges of one BookingSystem
+public interface BookingMetricsMXBean {
+    Map<String, Long> getCounters();
+
+    // Keys are "<operation>.p50", ".p99", ".p999", ".max" and ".mean", in microseconds
+    Map<String, Double> getLatencyMicros();
+
+    Map<String, Double> getLoadFactors();
+
+    Map<String, Integer> getWaitlistDepths();
+
+    String dump();
+}
@@ -0,0 +1,521 @@
+package flightbooking;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Multi-session booking server on loopback. Each connection gets its own thread and speaks JSON
+// lines: one request object per line, one response object per line, in the same shapes as
+// BatchBookingPipeline. All sessions share one BookingSystem. A fixed number of requests may be in
+// flight at once; a request that cannot get a permit within the admission wait is answered "busy"
+// rather than queued, so overload shows up as fast rejections instead of growing latency.
+//
+// Requests (book, cancel and my-bookings act for the logged-in user):
+//   {"op":"register","user":"asha","password":"secret"}
+//   {"op":"login","user":"asha","password":"secret"}
+//   {"op":"search","from":"Mumbai","to":"Goa","k":3,"objective":"cheapest","party":2}
+//   {"op":"departures","from":"Delhi","to":"Singapore","date":"2026-10-20","after":"10:00","before":"14:00"}
+//   {"op":"departures","from":"Delhi","to":"Singapore","after":"2026-10-20T22:00","next":5}
+//   {"op":"book","flight":"AI101","passengers":[{"name":"Asha","age":34}],"fareClass":"saver","waitlist":true}
+//   {"op":"cancel","flight":"AI101","passenger":"Asha (Passenger 1, Age 34)"}
+//   {"op":"my-bookings"}
+//   {"op":"quit"}
+//
+// Run with: java -cp booking/target/classes flightbooking.BookingServer [--data DIR] [--port N] [--max-in-flight N]
+public class BookingServer implements AutoCloseable {
+    private final BookingSystem system;
+    private final CredentialStore credentials;
+    private final ServerSocket serverSocket;
+    private final ThreadFactory sessionThreads = sessionThreadFactory();
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final long admissionWaitMillis = Long.getLong("booking.server.admission.wait.ms", 50);
+    private final int idleTimeoutMillis = Integer.getInteger("booking.server.idle.timeout.ms", 300_000);
+    private final long drainTimeoutMillis = Long.getLong("booking.server.drain.timeout.ms", 10_000);
+    private final Set<Socket> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    // Bounds on one departures answer
+    private static final int MAX_DEPARTURES = 500;
+    private static final int MAX_WINDOW_DAYS = 31;
+
+    BookingServer(BookingSystem system, CredentialStore credentials, int port, int maxInFlight) throws IOException {
+        this.system = system;
+        this.credentials = credentials;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.serverSocket = new ServerSocket(port, 4096, InetAddress.getLoopbackAddress());
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dataDir = Paths.get("");
+        int port = 7070;
+        int maxInFlight = Integer.getInteger("booking.server.inflight", 256);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--data")) {
+                dataDir = Paths.get(args[++i]);
+            } else if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--max-in-flight")) {
+                maxInFlight = Integer.parseInt(args[++i]);
+            }
+        }
+
+        BookingSystem system = new BookingSystem(dataDir);
+        if (!system.hasFlights()) {
+            Main.addDefaultFlights(system);
+        }
+        system.recover();
+        CredentialStore credentials = new CredentialStore(dataDir.resolve("users.idx"), dataDir.resolve("users.txt"));
+
+        BookingServer server = new BookingServer(system, credentials, port, maxInFlight);
+        // Ctrl-C or SIGTERM drains in-flight requests and flushes the journal before exit
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "server-shutdown"));
+        System.out.println("Booking server listening on " + server.serverSocket.getLocalSocketAddress() +
+            " (" + maxInFlight + " requests in flight)");
+        server.serve();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    long getRejected() {
+        return rejected.get();
+    }
+
+    // Accepts connections until close() is called
+    void serve() {
+        while (!closed.get()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!closed.get()) System.out.println("Error accepting connection: " + e.getMessage());
+                continue;
+            }
+            accepted.incrementAndGet();
+            sessions.add(socket);
+            sessionThreads.newThread(() -> runSession(socket)).start();
+        }
+    }
+
+    // Runs serve() on a background thread, for embedding the server in a test or benchmark
+    void start() {
+        Thread acceptor = new Thread(this::serve, "server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    // Virtual threads where the runtime has them (Java 21+). The build targets Java 17, so they are
+    // reached reflectively; older runtimes fall back to platform threads with small stacks.
+    static ThreadFactory sessionThreadFactory() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "session-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            AtomicLong ids = new AtomicLong();
+            return task -> {
+                Thread thread = new Thread(null, task, "session-" + ids.getAndIncrement(), 256 * 1024);
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    private void runSession(Socket socket) {
+        Session session = new Session();
+        try (socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setSoTimeout(idleTimeoutMillis);
+            socket.setTcpNoDelay(true);
+            String line;
+            while (!session.quit && (line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                writer.write(Json.write(handle(session, line)));
+                writer.write('\n');
+                writer.flush();
+            }
+        } catch (SocketTimeoutException e) {
+            // Idle sessions are dropped so they do not hold a socket forever
+        } catch (SocketException e) {
+            // The client went away, or close() shut the socket
+        } catch (IOException e) {
+            System.out.println("Error in session: " + e.getMessage());
+        } finally {
+            sessions.remove(socket);
+        }
+    }
+
+    private static class Session {
+        String user;
+        boolean quit;
+    }
+
+    // Runs one request under an in-flight permit and builds its response
+    private Map<String, Object> handle(Session session, String line) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        Map<String, Object> request;
+        try {
+            Object value = Json.parse(line);
+            if (!(value instanceof Map)) return error(response, "Request must be a JSON object");
+            @SuppressWarnings("unchecked")
+            Map<String, Object> json = (Map<String, Object>) value;
+            request = json;
+        } catch (IllegalArgumentException e) {
+            return error(response, "Malformed JSON: " + e.getMessage());
+        }
+        Object id = request.get("id");
+        if (id != null) response.put("id", id instanceof Double ? String.valueOf(((Double) id).longValue()) : id.toString());
+        String op = stringField(request, "op");
+        response.put("op", op);
+        if (op == null) return error(response, "Missing op");
+        if (op.equals("quit")) {
+            session.quit = true;
+            response.put("status", "ok");
+            return response;
+        }
+
+        if (closed.get()) return busy(response, "shutting down");
+        try {
+            if (!inFlight.tryAcquire(admissionWaitMillis, TimeUnit.MILLISECONDS)) return busy(response, "overloaded");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return busy(response, "shutting down");
+        }
+        try {
+            if (closed.get()) return busy(response, "shutting down");
+            response.put("status", "ok");
+            switch (op) {
+                case "register":
+                    register(request, response);
+                    break;
+                case "login":
+                    login(session, request, response);
+                    break;
+                case "search":
+                    search(request, response);
+                    break;
+                case "departures":
+                    departures(request, response);
+                    break;
+                case "book":
+                    if (requireLogin(session, response)) book(session.user, request, response);
+                    break;
+                case "cancel":
+                    if (requireLogin(session, response)) cancel(session.user, request, response);
+                    break;
+                case "my-bookings":
+                    if (requireLogin(session, response)) myBookings(session.user, response);
+                    break;
+                default:
+                    error(response, "Unknown op: " + op);
+            }
+        } catch (IOException | RuntimeException e) {
+            error(response, e.getMessage());
+        } finally {
+            inFlight.release();
+        }
+        return response;
+    }
+
+    private void register(Map<String, Object> request, Map<String, Object> response) throws IOException {
+        String user = stringField(request, "user");
+        String password = stringField(request, "password");
+        if (user == null || password == null) {
+            error(response, "register needs user and password");
+            return;
+        }
+        switch (credentials.register(user, password)) {
+            case CREATED:
+                system.audit.record(AuditLog.Type.REGISTER, user);
+                response.put("user", user);
+                break;
+            case DUPLICATE:
+                error(response, "Username already exists");
+                break;
+            default:
+                error(response, "Username and password must not be empty, and the username must be at most " +
+                    CredentialStore.MAX_NAME_BYTES + " bytes");
+        }
+    }
+
+    private void login(Session session, Map<String, Object> request, Map<String, Object> response) {
+        String user = stringField(request, "user");
+        String password = stringField(request, "password");
+        if (user == null || password == null || !credentials.verify(user, password)) {
+            if (user != null) system.audit.record(AuditLog.Type.LOGIN_FAILED, user);
+            error(response, "Invalid credentials");
+            return;
+        }
+        system.audit.record(AuditLog.Type.LOGIN, user);
+        system.ensureUserLoaded(user);
+        session.user = user;
+        response.put("user", user);
+    }
+
+    private static boolean requireLogin(Session session, Map<String, Object> response) {
+        if (session.user != null) return true;
+        error(response, "Log in first");
+        return false;
+    }
+
+    private void search(Map<String, Object> request, Map<String, Object> response) {
+        String from = stringField(request, "from");
+        String to = stringField(request, "to");
+        if (from == null || to == null) {
+            error(response, "search needs from and to");
+            return;
+        }
+        long start = Metrics.start();
+        List<ItinerarySearch.Itinerary> itineraries = system.searchItineraries(from, to, intField(request, "k", 3),
+            "fastest".equalsIgnoreCase(stringField(request, "objective")) ? ItinerarySearch.Objective.FASTEST : ItinerarySearch.Objective.CHEAPEST,
+            intField(request, "party", 1));
+        List<Object> results = new ArrayList<>();
+        for (ItinerarySearch.Itinerary itinerary : itineraries) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            List<Object> legs = new ArrayList<>();
+            for (Flight leg : itinerary.legs) legs.add(leg.flightNumber());
+            result.put("legs", legs);
+            result.put("departure", itinerary.legs.get(0).departureTime());
+            result.put("price", Fares.toRupees(itinerary.totalFare));
+            result.put("minutes", itinerary.totalMinutes());
+            results.add(result);
+        }
+        Metrics.record(Metrics.SEARCH, start);
+        response.put("itineraries", results);
+    }
+
+    // Dated departures on one route, either in a window or the next few after a time. Times are
+    // "HH:mm" on the request's date (today by default) or full "yyyy-MM-ddTHH:mm" instants; a window
+    // whose end is earlier than its start ends the following day.
+    private void departures(Map<String, Object> request, Map<String, Object> response) {
+        String from = stringField(request, "from");
+        String to = stringField(request, "to");
+        if (from == null || to == null) {
+            error(response, "departures needs from and to");
+            return;
+        }
+        LocalDate date = request.get("date") instanceof String ? LocalDate.parse(stringField(request, "date")) : LocalDate.now();
+        LocalDateTime after = instantField(request, "after", date, date.atStartOfDay());
+        long start = Metrics.start();
+        List<DepartureIndex.Departure> departures;
+        if (request.containsKey("next")) {
+            int next = Math.min(intField(request, "next", 1), MAX_DEPARTURES);
+            departures = system.nextDepartures(from, to, after, next);
+        } else {
+            LocalDateTime before = instantField(request, "before", date, date.atTime(23, 59));
+            if (before.isBefore(after)) before = before.plusDays(1);
+            if (before.isAfter(after.plusDays(MAX_WINDOW_DAYS))) {
+                error(response, "departures window is longer than " + MAX_WINDOW_DAYS + " days");
+                return;
+            }
+            departures = system.getDepartures(from, to, after, before);
+        }
+        List<Object> results = new ArrayList<>();
+        for (DepartureIndex.Departure departure : departures) {
+            if (results.size() == MAX_DEPARTURES) break;
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("flight", departure.flight.flightNumber());
+            result.put("departs", departure.departs.toString());
+            result.put("seats", departure.flight.availableSeats());
+            long fare = departure.flight.getFare(Fares.FareClass.STANDARD);
+            if (fare != Fares.UNAVAILABLE) result.put("price", Fares.toRupees(fare));
+            results.add(result);
+        }
+        Metrics.record(Metrics.SEARCH, start);
+        response.put("departures", results);
+    }
+
+    private void book(String user, Map<String, Object> request, Map<String, Object> response) {
+        Flight flight = flightField(request);
+        Object passengers = request.get("passengers");
+        if (flight == null || !(passengers instanceof List) || ((List<?>) passengers).isEmpty()) {
+            error(response, "book needs a known flight and a non-empty passengers list");
+            return;
+        }
+        List<BookingSystem.Passenger> party = new ArrayList<>();
+        for (Object item : (List<?>) passengers) {
+            Object name = item instanceof Map ? ((Map<?, ?>) item).get("name") : null;
+            Object age = item instanceof Map ? ((Map<?, ?>) item).get("age") : null;
+            if (!(name instanceof String) || !(age instanceof Double) || (Double) age < 0) {
+                error(response, "Each passenger must be an object with name and age");
+                return;
+            }
+            party.add(new BookingSystem.Passenger((String) name, ((Double) age).intValue()));
+        }
+        Fares.FareClass fareClass;
+        try {
+            fareClass = Fares.FareClass.parse(stringField(request, "fareClass"));
+        } catch (IllegalArgumentException e) {
+            error(response, "fareClass must be saver, standard or flex");
+            return;
+        }
+
+        Waitlist.Tier tier = !Boolean.TRUE.equals(request.get("waitlist")) ? null
+            : "priority".equalsIgnoreCase(stringField(request, "priority")) ? Waitlist.Tier.PRIORITY : Waitlist.Tier.STANDARD;
+        BookingSystem.PartyBooking booking = system.bookParty(user, flight, fareClass,
+            intField(request, "daysToDeparture", Fares.NO_DATE), party, tier);
+        switch (booking.status) {
+            case FARE_UNAVAILABLE:
+                error(response, fareClass + " fares are sold out on " + flight.flightNumber());
+                return;
+            case SOLD_OUT:
+                error(response, "Not enough seats available. Only " + flight.availableSeats() + " seats are available.");
+                return;
+            case WAITLIST_FULL:
+                error(response, "Not enough seats available and the waitlist is full.");
+                return;
+            case SAVE_FAILED:
+                error(response, "The booking could not be saved. Please try again.");
+                return;
+            case WAITLISTED:
+                response.put("status", "waitlisted");
+                response.put("flight", flight.flightNumber());
+                response.put("waitlisted", booking.waitlisted);
+                return;
+            default:
+                break;
+        }
+
+        List<Object> booked = new ArrayList<>(booking.records.size());
+        for (BookingSystem.BookingRecord record : booking.records) {
+            Map<String, Object> passenger = new LinkedHashMap<>();
+            passenger.put("passenger", record.passengerName);
+            passenger.put("seat", record.seatLabel());
+            booked.add(passenger);
+        }
+        response.put("flight", flight.flightNumber());
+        response.put("booked", booked);
+        response.put("fareClass", fareClass.name().toLowerCase());
+        response.put("totalCost", Fares.toRupees(booking.totalCost));
+    }
+
+    private void cancel(String user, Map<String, Object> request, Map<String, Object> response) {
+        Flight flight = flightField(request);
+        String passenger = stringField(request, "passenger");
+        if (flight == null || passenger == null) {
+            error(response, "cancel needs a known flight and passenger");
+            return;
+        }
+        if (system.cancelBooking(user, flight.flightNumber(), passenger) == null) {
+            error(response, "No booking for " + passenger + " on " + flight.flightNumber());
+            return;
+        }
+        response.put("flight", flight.flightNumber());
+        response.put("cancelled", passenger);
+    }
+
+    private void myBookings(String user, Map<String, Object> response) {
+        List<Object> bookings = new ArrayList<>();
+        for (BookingSystem.BookingRecord record : system.getBookings(user)) {
+            Map<String, Object> booking = new LinkedHashMap<>();
+            booking.put("passenger", record.passengerName);
+            booking.put("flight", record.flight.flightNumber());
+            booking.put("seat", record.seatLabel());
+            booking.put("from", record.flight.source());
+            booking.put("to", record.flight.destination());
+            booking.put("departure", record.flight.departureTime());
+            bookings.add(booking);
+        }
+        response.put("bookings", bookings);
+    }
+
+    private static Map<String, Object> error(Map<String, Object> response, String message) {
+        response.put("status", "error");
+        response.put("error", message);
+        return response;
+    }
+
+    private Map<String, Object> busy(Map<String, Object> response, String reason) {
+        rejected.incrementAndGet();
+        response.put("status", "busy");
+        response.put("error", "Server is " + reason + "; try again");
+        return response;
+    }
+
+    private static String stringField(Map<String, Object> request, String name) {
+        Object value = request.get(name);
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static int intField(Map<String, Object> request, String name, int defaultValue) {
+        Object value = request.get(name);
+        return value instanceof Double ? ((Double) value).intValue() : defaultValue;
+    }
+
+    // A time of day on the given date, or a full date and time
+    private static LocalDateTime instantField(Map<String, Object> request, String name, LocalDate date, LocalDateTime defaultValue) {
+        String value = stringField(request, name);
+        if (value == null) return defaultValue;
+        if (value.indexOf('T') >= 0) return LocalDateTime.parse(value);
+        return date.atStartOfDay().plusMinutes(Flight.parseMinuteOfDay(value));
+    }
+
+    private Flight flightField(Map<String, Object> request) {
+        String flightNumber = stringField(request, "flight");
+        return flightNumber == null ? null : system.getFlight(flightNumber);
+    }
+
+    // Stops accepting, lets requests already admitted finish, then closes every session and flushes
+    // the booking system: journal, snapshot, store and audit log
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.out.println("Error closing server socket: " + e.getMessage());
+        }
+        boolean drained = false;
+        try {
+            drained = inFlight.tryAcquire(maxInFlight, drainTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!drained) System.out.println("Shutting down with requests still in flight.");
+        for (Socket socket : sessions) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed by its session
+            }
+        }
+        system.close();
+        try {
+            credentials.close();
+        } catch (IOException e) {
+            System.out.println("Error closing credential index: " + e.getMessage());
+        }
+        System.out.println("Booking server stopped after " + accepted.get() + " connections (" + rejected.get() + " requests turned away).");
+    }
+}
@@ -0,0 +1,502 @@
+package flightbooking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+// Per-user booking lists, stored in a fixed number of partition files chosen by a hash of the
+// username instead of one file per user. Each partition is an append-only log of booking records
+// and cancellation tombstones with an in-memory index of every user's live records, so loading a
+// user is one positioned read of the span holding their records. Compaction rewrites a partition
+// with only live records, grouped by user, once enough of it is dead.
+//
+// The journal is the record of truth and appends here are not fsynced one by one: recovery
+// replays the journal tail into the store with reconcile(), which skips what already landed. Each
+// record keeps the sequence number its journal entry was committed under, so records written after
+// a commit that never became durable (a lost ASYNC batch, a failed write) are recognised by a
+// sequence number past the journal's end and dropped when their partition is first opened.
+//
+// Record layout: int body length, body (type byte, then user, flight and passenger as length-prefixed
+// UTF-8, then int seat, long journal sequence number, long fare in paise), int CRC32 of the body.
+class BookingStore implements AutoCloseable {
+    // Largest single read when loading a user; records further apart are read separately
+    private static final int MAX_SPAN = 64 * 1024;
+    // Read size when scanning a partition into its index
+    private static final int SCAN_BUFFER = 1 << 20;
+
+    private final Partition[] partitions;
+    private final double compactRatio = Double.parseDouble(System.getProperty("booking.store.compact.ratio", "0.5"));
+    private final long compactMinBytes = Long.getLong("booking.store.compact.min.bytes", 1 << 20);
+    // Last sequence number the journal held when it was recovered; later records have no journal entry
+    private volatile long journaledSeq = Long.MAX_VALUE;
+
+    // Live records of one user within a partition, in file order
+    private static class UserIndex {
+        long[] offsets = new long[2];
+        int[] lengths = new int[2];
+        int[] keys = new int[2];
+        int size;
+
+        void add(long offset, int length, int key) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            offsets[size] = offset;
+            lengths[size] = length;
+            keys[size] = key;
+            size++;
+        }
+
+        UserIndex copy() {
+            UserIndex copy = new UserIndex();
+            copy.offsets = Arrays.copyOf(offsets, size);
+            copy.lengths = Arrays.copyOf(lengths, size);
+            copy.keys = Arrays.copyOf(keys, size);
+            copy.size = size;
+            return copy;
+        }
+
+        void removeAt(int i) {
+            System.arraycopy(offsets, i + 1, offsets, i, size - i - 1);
+            System.arraycopy(lengths, i + 1, lengths, i, size - i - 1);
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            size--;
+        }
+    }
+
+    private class Partition {
+        final Path path;
+        // Guarded by this; the file is scanned into the index on first use
+        FileChannel channel;
+        Map<String, UserIndex> index;
+        long size;
+        long deadBytes;
+        final AtomicBoolean compacting = new AtomicBoolean();
+
+        Partition(Path path) {
+            this.path = path;
+        }
+
+        void open() throws IOException {
+            if (channel != null) return;
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index = new HashMap<>();
+            deadBytes = 0;
+            boolean[] unjournaled = new boolean[1];
+            size = scan(0, journaledSeq, unjournaled);
+            // Drop a torn tail left by a crash mid-append
+            if (size < channel.size()) channel.truncate(size);
+            // Rewrite without the records the journal lost, before new ones reuse their sequence numbers
+            if (unjournaled[0]) compact(true);
+        }
+
+        // Applies every intact record from offset on, reading the file in large sequential chunks,
+        // and returns the end of the last one. Records past maxSeq are skipped and flagged in skipped.
+        long scan(long offset, long maxSeq, boolean[] skipped) throws IOException {
+            long fileSize = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SCAN_BUFFER, Math.max(fileSize - offset, 8)));
+            long bufferStart = offset;
+            while (true) {
+                buffer.clear();
+                while (buffer.hasRemaining() && bufferStart + buffer.position() < fileSize) {
+                    if (channel.read(buffer, bufferStart + buffer.position()) < 0) break;
+                }
+                int limit = buffer.position();
+                int position = 0;
+                while (position + 4 <= limit) {
+                    int bodyLength = buffer.getInt(position);
+                    if (bodyLength <= 0 || bufferStart + position + 8 + bodyLength > fileSize) return bufferStart + position;
+                    if (position + 8 + bodyLength > limit) break;
+                    BookingJournal.Entry entry = decode(buffer.array(), position, bodyLength + 8);
+                    if (entry == null) return bufferStart + position;
+                    if (entry.seq <= maxSeq) {
+                        apply(entry, bufferStart + position, bodyLength + 8);
+                    } else {
+                        skipped[0] = true;
+                    }
+                    position += bodyLength + 8;
+                }
+                // Whatever is left unparsed at the end of the file is a torn record
+                if (bufferStart + limit >= fileSize) return bufferStart + position;
+                if (position == 0) {
+                    // A record larger than the buffer
+                    buffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.getInt(0) + 8));
+                }
+                bufferStart += position;
+            }
+        }
+
+        void apply(BookingJournal.Entry entry, long offset, int length) throws IOException {
+            int key = key(entry.flightNumber, entry.passengerName);
+            if (entry.type == BookingJournal.BOOK) {
+                index.computeIfAbsent(entry.username, k -> new UserIndex()).add(offset, length, key);
+                return;
+            }
+            deadBytes += length;
+            int i = find(entry, key);
+            if (i < 0) return;
+            UserIndex user = index.get(entry.username);
+            deadBytes += user.lengths[i];
+            user.removeAt(i);
+            if (user.size == 0) index.remove(entry.username);
+        }
+
+        // Position in the user's index of the live booking an entry refers to, or -1. A seat,
+        // when the entry has one, must match too, so a passenger rebooked on the same flight is
+        // told apart from the booking that was cancelled.
+        int find(BookingJournal.Entry entry, int key) throws IOException {
+            UserIndex user = index.get(entry.username);
+            if (user == null) return -1;
+            for (int i = 0; i < user.size; i++) {
+                if (user.keys[i] != key) continue;
+                BookingJournal.Entry live = read(user.offsets[i], user.lengths[i]);
+                if (live != null && live.flightNumber.equals(entry.flightNumber) && live.passengerName.equals(entry.passengerName)
+                    && (entry.seat < 0 || live.seat == entry.seat)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Journal entries that did not make it here before a crash; bookings already present and
+        // cancellations of bookings already gone are skipped
+        void reconcile(List<BookingJournal.Entry> entries) throws IOException {
+            open();
+            boolean added = false;
+            for (BookingJournal.Entry entry : entries) {
+                boolean live = find(entry, key(entry.flightNumber, entry.passengerName)) >= 0;
+                if (live != (entry.type == BookingJournal.BOOK)) {
+                    // One at a time, so later entries for the same booking see this one
+                    append(Collections.singletonList(entry));
+                    added = true;
+                }
+            }
+            if (added) force();
+        }
+
+        void force() throws IOException {
+            if (channel != null) channel.force(false);
+        }
+
+        BookingJournal.Entry read(long offset, int length) throws IOException {
+            ByteBuffer record = ByteBuffer.allocate(length);
+            while (record.hasRemaining()) {
+                if (channel.read(record, offset + record.position()) < 0) return null;
+            }
+            return decode(record.array());
+        }
+
+        void append(List<BookingJournal.Entry> entries) throws IOException {
+            open();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int[] lengths = new int[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                byte[] record = encode(entries.get(i));
+                lengths[i] = record.length;
+                bytes.write(record);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            long offset = size;
+            while (buffer.hasRemaining()) {
+                offset += channel.write(buffer, offset);
+            }
+            long position = size;
+            size = offset;
+            for (int i = 0; i < entries.size(); i++) {
+                apply(entries.get(i), position, lengths[i]);
+                position += lengths[i];
+            }
+        }
+
+        List<BookingJournal.Entry> load(String username) throws IOException {
+            open();
+            UserIndex user = index.get(username);
+            if (user == null) return Collections.emptyList();
+            List<BookingJournal.Entry> entries = new ArrayList<>(user.size);
+            // Neighbouring records share one read, so a compacted user costs a single read per window
+            int i = 0;
+            while (i < user.size) {
+                long first = user.offsets[i];
+                int last = i;
+                while (last + 1 < user.size && user.offsets[last + 1] + user.lengths[last + 1] - first <= MAX_SPAN) last++;
+                ByteBuffer window = ByteBuffer.allocate((int) (user.offsets[last] + user.lengths[last] - first));
+                while (window.hasRemaining()) {
+                    if (channel.read(window, first + window.position()) < 0) throw new IOException("Booking store " + path + " is truncated");
+                }
+                for (; i <= last; i++) {
+                    int from = (int) (user.offsets[i] - first);
+                    BookingJournal.Entry entry = decode(window.array(), from, user.lengths[i]);
+                    // A record damaged since it was indexed is left out; the journal still has it
+                    if (entry != null) entries.add(entry);
+                }
+            }
+            return entries;
+        }
+
+        boolean needsCompaction() {
+            return size >= compactMinBytes && deadBytes >= compactRatio * size;
+        }
+
+        // Rewrites live records user by user beside the partition, without holding its lock, then
+        // takes the lock again only to carry over records appended meanwhile and swap the files
+        void compact(boolean always) throws IOException {
+            if (!compacting.compareAndSet(false, true)) return;
+            try {
+                Map<String, UserIndex> live = new HashMap<>();
+                FileChannel source;
+                long copiedUpTo;
+                synchronized (this) {
+                    open();
+                    if (!always && !needsCompaction()) return;
+                    for (Map.Entry<String, UserIndex> user : index.entrySet()) {
+                        live.put(user.getKey(), user.getValue().copy());
+                    }
+                    source = channel;
+                    copiedUpTo = size;
+                }
+
+                Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+                Map<String, UserIndex> compacted = new HashMap<>();
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    long position = 0;
+                    for (Map.Entry<String, UserIndex> user : live.entrySet()) {
+                        UserIndex records = user.getValue();
+                        UserIndex moved = new UserIndex();
+                        for (int i = 0; i < records.size; i++) {
+                            transfer(source, records.offsets[i], records.lengths[i], out, position);
+                            moved.add(position, records.lengths[i], records.keys[i]);
+                            position += records.lengths[i];
+                        }
+                        compacted.put(user.getKey(), moved);
+                    }
+
+                    synchronized (this) {
+                        if (channel != source) {
+                            // Closed while we copied
+                            Files.deleteIfExists(tmp);
+                            return;
+                        }
+                        long tail = size - copiedUpTo;
+                        transfer(channel, copiedUpTo, tail, out, position);
+                        out.force(true);
+                        channel.close();
+                        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                        index = compacted;
+                        deadBytes = 0;
+                        // Records appended during the copy, cancellations among them, replayed over the copy
+                        size = tail > 0 ? scan(position, Long.MAX_VALUE, new boolean[1]) : position;
+                    }
+                }
+            } finally {
+                compacting.set(false);
+            }
+        }
+
+        private void transfer(FileChannel from, long offset, long length, FileChannel to, long position) throws IOException {
+            long copied = 0;
+            while (copied < length) {
+                copied += from.transferTo(offset + copied, length - copied, to.position(position + copied));
+            }
+        }
+
+        void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+                index = null;
+            }
+        }
+    }
+
+    // The partition count is fixed when the store is created, since it decides where every user lives
+    BookingStore(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path meta = dir.resolve("partitions");
+        int count;
+        if (Files.exists(meta)) {
+            count = Integer.parseInt(Files.readString(meta).trim());
+        } else {
+            count = Integer.getInteger("booking.store.partitions", 16);
+            Files.writeString(meta, count + "\n");
+        }
+        partitions = new Partition[count];
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new Partition(dir.resolve(String.format("part-%03d.dat", i)));
+        }
+    }
+
+    private Partition partition(String username) {
+        return partitions[Math.floorMod(username.hashCode(), partitions.length)];
+    }
+
+    private static int key(String flightNumber, String passengerName) {
+        return 31 * flightNumber.hashCode() + passengerName.hashCode();
+    }
+
+    // Marks lastSeq as the end of the recovered journal. Call before the store is first used: every
+    // partition drops its records with a later sequence number when it is opened.
+    void setJournaledSeq(long lastSeq) {
+        journaledSeq = lastSeq;
+    }
+
+    // Appends bookings for several users, one write per partition touched
+    void append(Map<String, List<BookingJournal.Entry>> entriesByUser) throws IOException {
+        Map<Partition, List<BookingJournal.Entry>> byPartition = new HashMap<>();
+        for (Map.Entry<String, List<BookingJournal.Entry>> user : entriesByUser.entrySet()) {
+            if (user.getValue().isEmpty()) continue;
+            byPartition.computeIfAbsent(partition(user.getKey()), k -> new ArrayList<>()).addAll(user.getValue());
+        }
+        for (Map.Entry<Partition, List<BookingJournal.Entry>> batch : byPartition.entrySet()) {
+            synchronized (batch.getKey()) {
+                batch.getKey().append(batch.getValue());
+            }
+        }
+    }
+
+    // Appends a tombstone that hides the matching booking, compacting in the background if the partition is mostly dead
+    void remove(BookingJournal.Entry cancellation) throws IOException {
+        Partition partition = partition(cancellation.username);
+        boolean compact;
+        synchronized (partition) {
+            partition.append(Collections.singletonList(cancellation));
+            compact = partition.needsCompaction();
+        }
+        if (compact) compactInBackground(partition);
+    }
+
+    // Replays journal entries over the store, skipping those already applied, and fsyncs what it adds
+    void reconcile(List<BookingJournal.Entry> entries) throws IOException {
+        Map<Partition, List<BookingJournal.Entry>> byPartition = new HashMap<>();
+        for (BookingJournal.Entry entry : entries) {
+            byPartition.computeIfAbsent(partition(entry.username), k -> new ArrayList<>()).add(entry);
+        }
+        for (Map.Entry<Partition, List<BookingJournal.Entry>> batch : byPartition.entrySet()) {
+            synchronized (batch.getKey()) {
+                batch.getKey().reconcile(batch.getValue());
+            }
+        }
+    }
+
+    // Fsyncs every open partition, so everything appended so far survives a crash
+    void force() throws IOException {
+        for (Partition partition : partitions) {
+            synchronized (partition) {
+                partition.force();
+            }
+        }
+    }
+
+    List<BookingJournal.Entry> load(String username) throws IOException {
+        Partition partition = partition(username);
+        synchronized (partition) {
+            return partition.load(username);
+        }
+    }
+
+    private void compactInBackground(Partition partition) {
+        if (partition.compacting.get()) return;
+        Thread compactor = new Thread(() -> {
+            try {
+                partition.compact(false);
+            } catch (IOException e) {
+                System.out.println("Error compacting booking store: " + e.getMessage());
+            }
+        }, "booking-store-compaction");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    // Compacts every partition now, whatever its dead share
+    void compactAll() throws IOException {
+        for (Partition partition : partitions) {
+            partition.compact(true);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Partition partition : partitions) {
+            synchronized (partition) {
+                partition.close();
+            }
+        }
+    }
+
+    // Whether every field of the entry fits its 16-bit length prefix
+    static boolean fits(BookingJournal.Entry entry) {
+        return fits(entry.username) && fits(entry.flightNumber) && fits(entry.passengerName);
+    }
+
+    static boolean fits(String field) {
+        // UTF-8 takes at most three bytes per char, so short strings need no encoding to tell
+        return field.length() * 3L <= 0xffff || field.getBytes(StandardCharsets.UTF_8).length <= 0xffff;
+    }
+
+    static byte[] encode(BookingJournal.Entry entry) {
+        byte[] username = entry.username.getBytes(StandardCharsets.UTF_8);
+        byte[] flightNumber = entry.flightNumber.getBytes(StandardCharsets.UTF_8);
+        byte[] passengerName = entry.passengerName.getBytes(StandardCharsets.UTF_8);
+        if (Math.max(username.length, Math.max(flightNumber.length, passengerName.length)) > 0xffff) {
+            throw new IllegalArgumentException("Booking field longer than 65535 bytes");
+        }
+        int bodyLength = 1 + 6 + username.length + flightNumber.length + passengerName.length + 4 + 16;
+        ByteBuffer record = ByteBuffer.allocate(bodyLength + 8).putInt(bodyLength).put((byte) entry.type);
+        record.putShort((short) username.length).put(username);
+        record.putShort((short) flightNumber.length).put(flightNumber);
+        record.putShort((short) passengerName.length).put(passengerName);
+        record.putInt(entry.seat).putLong(entry.seq).putLong(entry.farePaise);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, bodyLength);
+        return record.putInt((int) crc.getValue()).array();
+    }
+
+    static BookingJournal.Entry decode(byte[] record) {
+        return decode(record, 0, record.length);
+    }
+
+    // Decodes the record at data[offset, offset + length), or returns null if it fails its checksum
+    static BookingJournal.Entry decode(byte[] data, int offset, int length) {
+        if (length < 8) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+        int bodyLength = buffer.getInt();
+        if (bodyLength != length - 8) return null;
+        CRC32 crc = new CRC32();
+        crc.update(data, offset + 4, bodyLength);
+        if ((int) crc.getValue() != buffer.getInt(offset + 4 + bodyLength)) return null;
+        try {
+            char type = (char) buffer.get();
+            String username = readString(buffer);
+            String flightNumber = readString(buffer);
+            String passengerName = readString(buffer);
+            int seat = buffer.getInt();
+            long seq = buffer.getLong();
+            return new BookingJournal.Entry(seq, type, username, flightNumber, passengerName, seat, buffer.getLong());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xffff;
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,376 @@
+package flightbooking;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// User accounts in a memory-mapped open-addressing hash table, so a login or a duplicate check is
+// one probe sequence rather than a scan of every account. Passwords are kept only as salted
+// PBKDF2 hashes; a short-lived cache of verified sessions lets repeat logins skip the key stretching.
+//
+// File layout: a 64-byte header (magic, version, capacity, count) followed by capacity fixed-size
+// slots of state, name length, name bytes, salt, hash and iteration count.
+class CredentialStore implements AutoCloseable {
+    private static final int MAGIC = 0x55494458; // "UIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int SLOT = 128;
+    static final int MAX_NAME_BYTES = 62;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BYTES = 32;
+    private static final int NAME_OFFSET = 2;
+    private static final int SALT_OFFSET = NAME_OFFSET + MAX_NAME_BYTES;
+    private static final int HASH_OFFSET = SALT_OFFSET + SALT_BYTES;
+    private static final int ITERATIONS_OFFSET = HASH_OFFSET + HASH_BYTES;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    enum Registration { CREATED, DUPLICATE, INVALID }
+
+    // Unmaps a buffer without waiting for the collector; null where the JDK does not expose it
+    private static final Method INVOKE_CLEANER;
+    private static final Object UNSAFE;
+
+    static {
+        Method invokeCleaner = null;
+        Object unsafe = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Mappings are then released when collected
+        }
+        INVOKE_CLEANER = invokeCleaner;
+        UNSAFE = unsafe;
+    }
+
+    private final Path path;
+    private final int iterations = Integer.getInteger("booking.password.iterations", 100_000);
+    private final SecureRandom random = new SecureRandom();
+    // Guarded by this; file is the index itself except while it is first built beside it
+    private Path file;
+    private FileChannel channel;
+    private MappedByteBuffer table;
+    private int capacity;
+    private int count;
+    // Registrations written to the mapping, and how many of them a force has covered; the
+    // second is guarded by forceLock so one force can stand in for every registration behind it
+    private long written;
+    private final Object forceLock = new Object();
+    private long forced;
+
+    // Verified logins keyed by username; the digest binds the password to a per-process key
+    private final byte[] sessionKey = new byte[32];
+    private final long sessionTtlMillis = Long.getLong("booking.session.ttl.minutes", 30) * 60_000;
+    private final int sessionCacheSize = Integer.getInteger("booking.session.cache", 10_000);
+    private final Map<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+            return size() > sessionCacheSize;
+        }
+    };
+
+    private static class Session {
+        final byte[] digest;
+        final long expiresAt;
+
+        Session(byte[] digest, long expiresAt) {
+            this.digest = digest;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Opens the index, building it from a legacy plaintext users file the first time. The
+    // plaintext file is deleted right after the index holding its accounts is in place, and
+    // left alone on every other start.
+    CredentialStore(Path path, Path legacyUsers) throws IOException {
+        this.path = path;
+        random.nextBytes(sessionKey);
+        if (!Files.exists(path)) {
+            build(legacyUsers);
+        }
+        map(path);
+    }
+
+    // Fills a new index beside the final path and moves it into place only when complete, so a
+    // crash during the import leaves no partial index to be trusted on restart
+    private synchronized void build(Path legacyUsers) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".new");
+        Files.deleteIfExists(tmp);
+        createTable(tmp, INITIAL_CAPACITY);
+        map(tmp);
+        boolean imported = legacyUsers != null && Files.exists(legacyUsers);
+        try {
+            if (imported) {
+                importLegacyUsers(legacyUsers);
+            }
+            table.force();
+        } finally {
+            channel.close();
+            release(table);
+            table = null;
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (imported) {
+            Files.delete(legacyUsers);
+        }
+    }
+
+    private static void createTable(Path file, int capacity) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = out.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * SLOT);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, capacity);
+            buffer.putInt(12, 0);
+            buffer.force();
+            release(buffer);
+        }
+    }
+
+    private void map(Path file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER) throw new IOException("Credential index " + file + " is truncated");
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+        boolean valid = header.getInt(0) == MAGIC && header.getInt(4) == VERSION;
+        capacity = header.getInt(8);
+        release(header);
+        if (!valid) throw new IOException("Not a credential index: " + file);
+        if (channel.size() < HEADER + (long) capacity * SLOT) throw new IOException("Credential index " + file + " is truncated");
+        table = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * SLOT);
+        count = table.getInt(12);
+    }
+
+    // Lines of "username,password"; a name listed twice keeps its first password
+    private void importLegacyUsers(Path legacyUsers) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(legacyUsers, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length == 2) {
+                    register(parts[0].trim(), parts[1].trim(), false);
+                }
+            }
+        }
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    synchronized boolean exists(String username) {
+        byte[] name = nameBytes(username);
+        return name != null && findSlot(name) >= 0;
+    }
+
+    // Adds an account unless the name is taken or unusable; the slot is forced to disk before returning
+    Registration register(String username, String password) throws IOException {
+        return register(username, password, true);
+    }
+
+    // A legacy import forces once at the end instead of per account
+    private Registration register(String username, String password, boolean force) throws IOException {
+        byte[] name = nameBytes(username);
+        if (name == null || name.length == 0 || password.isEmpty()) return Registration.INVALID;
+        // A taken name is turned away before paying for the hash; the probe is repeated under the lock below
+        synchronized (this) {
+            if (findSlot(name) >= 0) return Registration.DUPLICATE;
+        }
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        // Stretch outside the lock so concurrent logins are not held up
+        byte[] hash = pbkdf2(password, salt, iterations);
+        long sequence;
+        synchronized (this) {
+            if (findSlot(name) >= 0) return Registration.DUPLICATE;
+            if ((count + 1) * 10L > capacity * 7L) grow();
+            int slot = freeSlot(name);
+            int base = HEADER + slot * SLOT;
+            table.put(base + 1, (byte) name.length);
+            table.put(base + NAME_OFFSET, name);
+            table.put(base + SALT_OFFSET, salt);
+            table.put(base + HASH_OFFSET, hash);
+            table.putInt(base + ITERATIONS_OFFSET, iterations);
+            // The state byte goes last so a torn write leaves the slot empty
+            table.put(base, (byte) 1);
+            table.putInt(12, ++count);
+            sequence = ++written;
+        }
+        if (force) {
+            awaitForced(sequence);
+        }
+        return Registration.CREATED;
+    }
+
+    // Registrations that finish while another force runs are covered by the next one together
+    private void awaitForced(long sequence) {
+        synchronized (forceLock) {
+            if (forced >= sequence) return;
+            long upTo;
+            synchronized (this) {
+                upTo = written;
+                table.force();
+            }
+            forced = upTo;
+        }
+    }
+
+    boolean verify(String username, String password) {
+        byte[] name = nameBytes(username);
+        if (name == null) return false;
+        byte[] salt = new byte[SALT_BYTES];
+        byte[] expected = new byte[HASH_BYTES];
+        int rounds;
+        synchronized (this) {
+            int slot = findSlot(name);
+            if (slot < 0) return false;
+            int base = HEADER + slot * SLOT;
+            table.get(base + SALT_OFFSET, salt);
+            table.get(base + HASH_OFFSET, expected);
+            rounds = table.getInt(base + ITERATIONS_OFFSET);
+        }
+
+        byte[] digest = sessionDigest(salt, password);
+        long now = System.currentTimeMillis();
+        synchronized (sessions) {
+            Session session = sessions.get(username);
+            if (session != null && session.expiresAt > now && MessageDigest.isEqual(session.digest, digest)) return true;
+        }
+        if (!MessageDigest.isEqual(expected, pbkdf2(password, salt, rounds))) return false;
+        synchronized (sessions) {
+            sessions.put(username, new Session(digest, now + sessionTtlMillis));
+        }
+        return true;
+    }
+
+    // UTF-8 bytes of a username, or null if it does not fit a slot
+    private static byte[] nameBytes(String username) {
+        if (username == null) return null;
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        return name.length > MAX_NAME_BYTES ? null : name;
+    }
+
+    // FNV-1a, so the probe start depends only on the stored bytes
+    private static int home(byte[] name, int capacity) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : name) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+
+    private int findSlot(byte[] name) {
+        for (int slot = home(name, capacity), probes = 0; probes < capacity; slot = (slot + 1) & (capacity - 1), probes++) {
+            int base = HEADER + slot * SLOT;
+            if (table.get(base) == 0) return -1;
+            if (nameMatches(base, name)) return slot;
+        }
+        return -1;
+    }
+
+    private int freeSlot(byte[] name) {
+        int slot = home(name, capacity);
+        while (table.get(HEADER + slot * SLOT) != 0) slot = (slot + 1) & (capacity - 1);
+        return slot;
+    }
+
+    private boolean nameMatches(int base, byte[] name) {
+        if ((table.get(base + 1) & 0xff) != name.length) return false;
+        for (int i = 0; i < name.length; i++) {
+            if (table.get(base + NAME_OFFSET + i) != name[i]) return false;
+        }
+        return true;
+    }
+
+    // Rehashes into a table twice the size, written beside the index and moved over it atomically
+    private void grow() throws IOException {
+        int newCapacity = capacity * 2;
+        // Slot offsets are ints, which caps a single index file at 2 GB
+        if ((long) newCapacity * SLOT + HEADER > Integer.MAX_VALUE) throw new IOException("Credential index is full");
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        createTable(tmp, newCapacity);
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer grown = out.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) newCapacity * SLOT);
+            byte[] slotBytes = new byte[SLOT];
+            for (int slot = 0; slot < capacity; slot++) {
+                int base = HEADER + slot * SLOT;
+                if (table.get(base) == 0) continue;
+                table.get(base, slotBytes);
+                byte[] name = new byte[slotBytes[1] & 0xff];
+                System.arraycopy(slotBytes, NAME_OFFSET, name, 0, name.length);
+                int target = home(name, newCapacity);
+                while (grown.get(HEADER + target * SLOT) != 0) target = (target + 1) & (newCapacity - 1);
+                grown.put(HEADER + target * SLOT, slotBytes);
+            }
+            grown.putInt(12, count);
+            grown.force();
+            release(grown);
+        }
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // Every reader holds this lock, so nothing can touch the old mapping once it is swapped out
+        MappedByteBuffer old = table;
+        map(file);
+        release(old);
+    }
+
+    private static void release(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) return;
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            // Released when collected instead
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        try {
+            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BYTES * 8);
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 is unavailable", e);
+        }
+    }
+
+    private byte[] sessionDigest(byte[] salt, String password) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(sessionKey);
+            sha.update(salt);
+            return sha.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is unavailable", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null) return;
+        table.force();
+        channel.close();
+        channel = null;
+    }
+}
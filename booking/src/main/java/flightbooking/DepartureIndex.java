@@ -0,0 +1,130 @@
+package flightbooking;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-route departure schedules as sorted primitive arrays, so a time-window or next-departure
+// query is a binary search plus the size of its answer. A route's schedule is built on first use
+// and dropped when a flight is added to the route. Every flight in the catalog runs daily, so
+// date-aware queries repeat the schedule across the days they span.
+class DepartureIndex {
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    static final class Departure {
+        final Flight flight;
+        final LocalDateTime departs;
+
+        Departure(Flight flight, LocalDateTime departs) {
+            this.flight = flight;
+            this.departs = departs;
+        }
+
+        public String toString() {
+            return flight.flightNumber() + " " + departs;
+        }
+    }
+
+    // One route's flights ordered by departure minute
+    static final class Schedule {
+        final int[] minutes;
+        final Flight[] flights;
+
+        Schedule(List<Flight> routeFlights) {
+            Flight[] sorted = routeFlights.toArray(new Flight[0]);
+            Arrays.sort(sorted, Comparator.comparingInt(Flight::departureMinute));
+            flights = sorted;
+            minutes = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                minutes[i] = sorted[i].departureMinute();
+            }
+        }
+
+        // Index of the first departure at or after minute
+        int lowerBound(int minute) {
+            int low = 0;
+            int high = minutes.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (minutes[mid] < minute) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        // Departures from `from` to `to` inclusive; a window with from after to runs past midnight
+        List<Flight> between(int from, int to) {
+            if (from > to && from < MINUTES_PER_DAY) {
+                List<Flight> flights = between(from, MINUTES_PER_DAY - 1);
+                flights.addAll(between(0, to));
+                return flights;
+            }
+            int start = lowerBound(from);
+            int end = lowerBound(to + 1);
+            List<Flight> result = new ArrayList<>(Math.max(end - start, 0));
+            for (int i = start; i < end; i++) {
+                result.add(flights[i]);
+            }
+            return result;
+        }
+    }
+
+    private static final Schedule EMPTY = new Schedule(Collections.emptyList());
+
+    private final Map<Long, Schedule> schedules = new ConcurrentHashMap<>();
+
+    // Drops the route's schedule so the next query sees the new flight
+    void invalidate(long routeKey) {
+        schedules.remove(routeKey);
+    }
+
+    Schedule schedule(long routeKey, List<Flight> routeFlights) {
+        if (routeFlights.isEmpty()) return EMPTY;
+        return schedules.computeIfAbsent(routeKey, k -> new Schedule(routeFlights));
+    }
+
+    // Departures between two instants, oldest first
+    static List<Departure> between(Schedule schedule, LocalDateTime from, LocalDateTime to) {
+        List<Departure> result = new ArrayList<>();
+        if (schedule.flights.length == 0) return result;
+        for (LocalDate day = from.toLocalDate(); !day.isAfter(to.toLocalDate()); day = day.plusDays(1)) {
+            int first = day.equals(from.toLocalDate()) ? minuteOfDay(from) : 0;
+            int last = day.equals(to.toLocalDate()) ? to.getHour() * 60 + to.getMinute() : MINUTES_PER_DAY - 1;
+            if (first > last) continue;
+            for (Flight flight : schedule.between(first, last)) {
+                result.add(new Departure(flight, day.atStartOfDay().plusMinutes(flight.departureMinute())));
+            }
+        }
+        return result;
+    }
+
+    // The next n departures at or after an instant, rolling over into the following days
+    static List<Departure> next(Schedule schedule, LocalDateTime after, int n) {
+        List<Departure> result = new ArrayList<>(Math.max(n, 0));
+        if (schedule.flights.length == 0) return result;
+        LocalDate day = after.toLocalDate();
+        int i = schedule.lowerBound(minuteOfDay(after));
+        while (result.size() < n) {
+            if (i == schedule.flights.length) {
+                day = day.plusDays(1);
+                i = 0;
+                continue;
+            }
+            Flight flight = schedule.flights[i++];
+            result.add(new Departure(flight, day.atStartOfDay().plusMinutes(flight.departureMinute())));
+        }
+        return result;
+    }
+
+    // The first whole minute at or after an instant; seconds round up so 10:00 is not "after" 10:00:30
+    private static int minuteOfDay(LocalDateTime time) {
+        int minute = time.getHour() * 60 + time.getMinute();
+        return time.getSecond() > 0 || time.getNano() > 0 ? minute + 1 : minute;
+    }
+}
@@ -0,0 +1,88 @@
+package flightbooking;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Fare rules and money arithmetic. Amounts are whole paise in a long, so totals are exact and
+// multipliers are integer basis points applied with half-up rounding.
+final class Fares {
+    enum FareClass {
+        SAVER(8500), STANDARD(10000), FLEX(13000);
+
+        final int basisPoints;
+
+        FareClass(int basisPoints) {
+            this.basisPoints = basisPoints;
+        }
+
+        static FareClass parse(String name) {
+            if (name == null || name.isEmpty()) return STANDARD;
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+    static final int BASIS = 10000;
+    static final long UNAVAILABLE = -1;
+
+    // Load buckets by share of seats sold: under 50%, 50-75%, 75-90%, 90% and over
+    static final int LOAD_BUCKETS = 4;
+    private static final int[] LOAD_PERCENT = {50, 75, 90};
+    private static final int[] LOAD_BASIS_POINTS = {10000, 11000, 12500, 15000};
+    // Saver fares close once the flight reaches this load bucket
+    static final int SAVER_CLOSES_AT = 2;
+
+    // Time buckets by days to departure: 14 or more, 7-13, 2-6, under 2
+    static final int TIME_BUCKETS = 4;
+    private static final int[] TIME_DAYS = {14, 7, 2};
+    private static final int[] TIME_BASIS_POINTS = {10000, 11000, 12500, 15000};
+    // Searches without a travel date are priced as advance purchases
+    static final int NO_DATE = Integer.MAX_VALUE;
+
+    private Fares() {
+    }
+
+    static long toPaise(double rupees) {
+        return BigDecimal.valueOf(rupees).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    static long applyBasisPoints(long paise, int basisPoints) {
+        return (paise * basisPoints + BASIS / 2) / BASIS;
+    }
+
+    static int loadBucket(int totalSeats, int availableSeats) {
+        if (totalSeats <= 0) return LOAD_BUCKETS - 1;
+        long soldPercent = 100L * (totalSeats - availableSeats);
+        int bucket = 0;
+        while (bucket < LOAD_PERCENT.length && soldPercent >= (long) LOAD_PERCENT[bucket] * totalSeats) bucket++;
+        return bucket;
+    }
+
+    static int timeBucket(int daysToDeparture) {
+        int bucket = 0;
+        while (bucket < TIME_DAYS.length && daysToDeparture < TIME_DAYS[bucket]) bucket++;
+        return bucket;
+    }
+
+    // Adult fare for a load and time bucket, or UNAVAILABLE once Saver has closed
+    static long fare(long basePaise, int loadBucket, int timeBucket, FareClass fareClass) {
+        if (fareClass == FareClass.SAVER && loadBucket >= SAVER_CLOSES_AT) return UNAVAILABLE;
+        long timed = applyBasisPoints(applyBasisPoints(basePaise, LOAD_BASIS_POINTS[loadBucket]), TIME_BASIS_POINTS[timeBucket]);
+        return applyBasisPoints(timed, fareClass.basisPoints);
+    }
+
+    // Infants travel free and children pay half the adult fare
+    static long forAge(long adultFare, int age) {
+        if (age <= 2) return 0;
+        if (age <= 12) return (adultFare + 1) / 2;
+        return adultFare;
+    }
+
+    static String format(long paise) {
+        return "₹" + BigDecimal.valueOf(paise, 2).toPlainString();
+    }
+
+    // Exact decimal rupees for machine-readable output
+    static BigDecimal toRupees(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+}
@@ -0,0 +1,141 @@
+package flightbooking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Compact binary image of the flight catalog, its seat state and waitlists, tagged with the journal
+// position it is consistent with. Recovery loads it and replays only the journal after that point.
+//
+// Waitlists are kept only here: joining one is not journaled, so a crash loses the parties that
+// joined since the last snapshot (a clean shutdown writes one). They are taken just after the journal
+// position, so a party may be saved as waiting although its promotion is already in the journal
+// tail; recovery drops such parties.
+class FlightSnapshot {
+    private static final int MAGIC = 0x46534e50; // "FSNP"
+    private static final int VERSION = 1;
+
+    final long lastSeq;
+    final long journalOffset;
+    final List<Flight> flights;
+
+    FlightSnapshot(long lastSeq, long journalOffset, List<Flight> flights) {
+        this.lastSeq = lastSeq;
+        this.journalOffset = journalOffset;
+        this.flights = flights;
+    }
+
+    // bookedSeats[i], seatWords[i] and waitlists.get(i) belong to flights.get(i)
+    static void write(Path path, long lastSeq, long journalOffset, List<Flight> flights,
+                      int[] bookedSeats, long[][] seatWords, List<List<Waitlist.Entry>> waitlists) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastSeq);
+            out.writeLong(journalOffset);
+            out.writeInt(flights.size());
+            for (int i = 0; i < flights.size(); i++) {
+                Flight flight = flights.get(i);
+                out.writeUTF(flight.flightNumber());
+                out.writeUTF(flight.source());
+                out.writeUTF(flight.destination());
+                out.writeInt(flight.departureMinute());
+                out.writeInt(flight.durationMinutes());
+                out.writeInt(flight.totalSeats());
+                out.writeLong(flight.basePaise());
+                out.writeInt(bookedSeats[i]);
+                out.writeInt(seatWords[i].length);
+                for (long word : seatWords[i]) {
+                    out.writeLong(word);
+                }
+                List<Waitlist.Entry> waitlist = waitlists.get(i);
+                out.writeInt(waitlist.size());
+                for (Waitlist.Entry entry : waitlist) {
+                    out.writeUTF(entry.username);
+                    out.writeByte(entry.tier.ordinal());
+                    out.writeLong(entry.enqueuedAt);
+                    out.writeInt(entry.partySize());
+                    for (String passenger : entry.passengerNames) {
+                        out.writeUTF(passenger);
+                    }
+                }
+            }
+            out.flush();
+            // The trailer is written past the checksummed stream
+            new DataOutputStream(file).writeLong(crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Adds the snapshot's flights to the table. Returns null when there is no snapshot; a damaged one
+    // is an error rather than silently ignored
+    static FlightSnapshot read(Path path, FlightTable table) throws IOException {
+        if (!Files.exists(path)) return null;
+        CRC32 crc = new CRC32();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unrecognised snapshot format: " + path);
+            }
+            long lastSeq = in.readLong();
+            long journalOffset = in.readLong();
+            int count = in.readInt();
+            List<Flight> flights = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String flightNumber = in.readUTF();
+                String source = in.readUTF();
+                String destination = in.readUTF();
+                int departureMinute = in.readInt();
+                int durationMinutes = in.readInt();
+                int totalSeats = in.readInt();
+                long basePaise = in.readLong();
+                Flight flight = table.add(flightNumber, table.cityId(source), table.cityId(destination), totalSeats, basePaise,
+                    departureMinute, durationMinutes);
+                int bookedSeats = in.readInt();
+                long[] committed = new long[in.readInt()];
+                for (int w = 0; w < committed.length; w++) {
+                    committed[w] = in.readLong();
+                }
+                flight.restoreCommitted(bookedSeats, committed);
+                int waiting = in.readInt();
+                for (int w = 0; w < waiting; w++) {
+                    String username = in.readUTF();
+                    Waitlist.Tier tier = Waitlist.Tier.values()[in.readByte()];
+                    long enqueuedAt = in.readLong();
+                    int partySize = in.readInt();
+                    List<String> passengers = new ArrayList<>(partySize);
+                    for (int p = 0; p < partySize; p++) {
+                        passengers.add(in.readUTF());
+                    }
+                    flight.waitlist().offer(new Waitlist.Entry(username, passengers, tier, enqueuedAt));
+                }
+                flights.add(flight);
+            }
+            long expected = crc.getValue();
+            if (new DataInputStream(file).readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + path);
+            }
+            return new FlightSnapshot(lastSeq, journalOffset, flights);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package flightbooking;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+// The flight catalog as columns of primitives rather than one object per flight. City names are
+// dictionary-encoded to int ids, times are minutes after midnight and fares are paise, so a scan over
+// the whole catalog touches a few dense arrays instead of chasing a graph of objects. Flight is a
+// view of one row; its seat map and waitlist are only created once the flight is booked or queued.
+//
+// Columns live in fixed-size chunks that never move once allocated, so an add never copies a seat
+// count out from under a concurrent CAS. Adds are single-threaded and happen before the catalog is
+// handed to booking sessions, as with the other catalog indexes.
+class FlightTable {
+    static final int CHUNK_BITS = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Told when a flight's free seats reach zero (open false) or rise above it again
+    interface AvailabilityListener {
+        void availabilityChanged(Flight flight, boolean open);
+    }
+
+    // Markets a city can belong to; the domestic and international filters select on these
+    static final byte OTHER = 0;
+    static final byte DOMESTIC = 1;
+    static final byte INTERNATIONAL = 2;
+
+    static final class Chunk {
+        final FlightTable table;
+        final String[] flightNumbers = new String[CHUNK_SIZE];
+        final int[] sources = new int[CHUNK_SIZE];
+        final int[] destinations = new int[CHUNK_SIZE];
+        final int[] departureMinutes = new int[CHUNK_SIZE];
+        final int[] durationMinutes = new int[CHUNK_SIZE];
+        final int[] totalSeats = new int[CHUNK_SIZE];
+        // Changed only by CAS through Flight
+        final int[] availableSeats = new int[CHUNK_SIZE];
+        // Seats held by journaled bookings; changed only under the journal lock
+        final int[] bookedSeats = new int[CHUNK_SIZE];
+        final long[] basePaise = new long[CHUNK_SIZE];
+        // Current load bucket and the Standard fare without a travel date, the one every listing shows
+        final int[] fareBuckets = new int[CHUNK_SIZE];
+        final long[] standardFares = new long[CHUNK_SIZE];
+        // Created on first use by Flight
+        final SeatMap[] seatMaps = new SeatMap[CHUNK_SIZE];
+        final Waitlist[] waitlists = new Waitlist[CHUNK_SIZE];
+        final Flight[] views = new Flight[CHUNK_SIZE];
+
+        Chunk(FlightTable table) {
+            this.table = table;
+        }
+    }
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int size;
+
+    private final Map<String, Integer> cityIds = new HashMap<>();
+    private volatile String[] cityNames = new String[16];
+    private volatile byte[] markets = new byte[16];
+    private int cityCount;
+    private volatile AvailabilityListener availabilityListener;
+
+    public Flight add(String flightNumber, String source, String destination, int totalSeats, double basePrice, String departureTime) {
+        int sourceId = cityId(source);
+        int destinationId = cityId(destination);
+        boolean international = markets[sourceId] == INTERNATIONAL || markets[destinationId] == INTERNATIONAL;
+        // The catalog has no arrival times, so connections are timed with a block-time estimate
+        return add(flightNumber, sourceId, destinationId, totalSeats, Fares.toPaise(basePrice),
+            Flight.parseMinuteOfDay(departureTime), international ? 300 : 120);
+    }
+
+    public Flight add(String flightNumber, String source, String destination, int totalSeats, double basePrice, String departureTime, int durationMinutes) {
+        return add(flightNumber, cityId(source), cityId(destination), totalSeats, Fares.toPaise(basePrice),
+            Flight.parseMinuteOfDay(departureTime), durationMinutes);
+    }
+
+    Flight add(String flightNumber, int sourceId, int destinationId, int totalSeats, long basePaise, int departureMinute, int durationMinutes) {
+        int id = size;
+        int slot = id & CHUNK_MASK;
+        if (slot == 0) {
+            Chunk[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[grown.length - 1] = new Chunk(this);
+            chunks = grown;
+        }
+        Chunk chunk = chunks[id >>> CHUNK_BITS];
+        chunk.flightNumbers[slot] = flightNumber;
+        chunk.sources[slot] = sourceId;
+        chunk.destinations[slot] = destinationId;
+        chunk.departureMinutes[slot] = departureMinute;
+        chunk.durationMinutes[slot] = durationMinutes;
+        chunk.totalSeats[slot] = totalSeats;
+        chunk.availableSeats[slot] = totalSeats;
+        chunk.basePaise[slot] = basePaise;
+        chunk.fareBuckets[slot] = -1;
+        Flight flight = new Flight(chunk, slot, id);
+        chunk.views[slot] = flight;
+        flight.restoreSeats();
+        size = id + 1;
+        return flight;
+    }
+
+    void setAvailabilityListener(AvailabilityListener listener) {
+        this.availabilityListener = listener;
+    }
+
+    void availabilityChanged(Flight flight, boolean open) {
+        AvailabilityListener listener = availabilityListener;
+        if (listener != null) listener.availabilityChanged(flight, open);
+    }
+
+    int size() {
+        return size;
+    }
+
+    Flight get(int id) {
+        return chunks[id >>> CHUNK_BITS].views[id & CHUNK_MASK];
+    }
+
+    // A live list of every flight in the order added
+    List<Flight> flights() {
+        return new FlightList();
+    }
+
+    private class FlightList extends AbstractList<Flight> implements RandomAccess {
+        @Override
+        public Flight get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Flight " + index + " of " + size);
+            return FlightTable.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // The id for a city name, adding it to the dictionary if it is new
+    int cityId(String name) {
+        Integer id = cityIds.get(name);
+        if (id != null) return id;
+        if (cityCount == cityNames.length) {
+            markets = Arrays.copyOf(markets, cityCount * 2);
+            cityNames = Arrays.copyOf(cityNames, cityCount * 2);
+        }
+        markets[cityCount] = BookingSystem.INTERNATIONAL_CITIES.contains(name) ? INTERNATIONAL
+            : BookingSystem.DOMESTIC_CITIES.contains(name) ? DOMESTIC : OTHER;
+        cityNames[cityCount] = name;
+        cityIds.put(name, cityCount);
+        return cityCount++;
+    }
+
+    // The id for a known city, or -1
+    int findCity(String name) {
+        Integer id = cityIds.get(name);
+        return id != null ? id : -1;
+    }
+
+    String cityName(int id) {
+        return cityNames[id];
+    }
+
+    int cityCount() {
+        return cityCount;
+    }
+
+    byte market(int cityId) {
+        return markets[cityId];
+    }
+}
@@ -0,0 +1,354 @@
+package flightbooking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Multi-leg route search over the flight graph. The adjacency is built once per catalog version
+// and reused; seat availability is read live from each Flight so it never goes stale. Cities are
+// the FlightTable's ids.
+class ItinerarySearch {
+    private static final int MINUTES_PER_DAY = DepartureIndex.MINUTES_PER_DAY;
+
+    enum Objective { CHEAPEST, FASTEST }
+
+    static class Itinerary {
+        final List<Flight> legs;
+        // Absolute minutes from midnight of the first travel day
+        final int[] departures;
+        final int arrival;
+        // Standard adult fare in paise across all legs, at the load seen during the search
+        final long totalFare;
+
+        Itinerary(List<Flight> legs, int[] departures, int arrival, long totalFare) {
+            this.legs = legs;
+            this.departures = departures;
+            this.arrival = arrival;
+            this.totalFare = totalFare;
+        }
+
+        int totalMinutes() {
+            return arrival - departures[0];
+        }
+
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < legs.size(); i++) {
+                Flight leg = legs.get(i);
+                if (i > 0) sb.append(" -> ");
+                sb.append(leg.flightNumber()).append(" ").append(leg.source()).append("-").append(leg.destination())
+                    .append(" ").append(leg.departureTime());
+                if (departures[i] >= MINUTES_PER_DAY) sb.append(" (+").append(departures[i] / MINUTES_PER_DAY).append("d)");
+            }
+            return sb.append(" | Total time: ").append(totalMinutes() / 60).append("h ").append(totalMinutes() % 60)
+                .append("m | Price: ").append(Fares.format(totalFare)).toString();
+        }
+    }
+
+    // A partial itinerary ending at city; prev links back to the earlier legs
+    private static class Label {
+        final int city;
+        final Flight flight;
+        final Label prev;
+        final int legs;
+        final int departure;
+        final int firstDeparture;
+        final int arrival;
+        final long cost;
+        // The least fare and total minutes any completion of this label can reach
+        final long minCost;
+        final int minMinutes;
+
+        Label(int city, Flight flight, Label prev, int departure, int arrival, long cost, CostToGo toGo) {
+            this.city = city;
+            this.flight = flight;
+            this.prev = prev;
+            this.legs = prev == null ? 1 : prev.legs + 1;
+            this.departure = departure;
+            this.firstDeparture = prev == null ? departure : prev.firstDeparture;
+            this.arrival = arrival;
+            this.cost = cost;
+            int legsLeft = toGo.fares.length - 1 - legs;
+            this.minCost = cost + toGo.fares[legsLeft][city];
+            this.minMinutes = arrival - firstDeparture + toGo.minutes[legsLeft][city];
+        }
+    }
+
+    // Lower bounds on the fare and minutes still needed to reach the destination from each city,
+    // by legs left. Live fares never fall below the base fare, so the bounds hold at any load.
+    private static final class CostToGo {
+        static final long NO_FARE = Long.MAX_VALUE / 2;
+        static final int NO_ROUTE = Integer.MAX_VALUE / 2;
+
+        final long[][] fares;
+        final int[][] minutes;
+
+        CostToGo(int cityCount, int maxLegs) {
+            fares = new long[maxLegs + 1][cityCount];
+            minutes = new int[maxLegs + 1][cityCount];
+        }
+
+        boolean reachable(int city, int legsLeft) {
+            return fares[legsLeft][city] < NO_FARE;
+        }
+    }
+
+    private final FlightTable table;
+    // Outgoing flights per city id in departure order, with their destination ids alongside
+    private final DepartureIndex.Schedule[] outgoing;
+    private final int[][] destinationIds;
+    // Per city, each city it serves with the lowest base fare and shortest flight on that route
+    private final int[][] routes;
+    private final long[][] routeFares;
+    private final int[][] routeMinutes;
+
+    ItinerarySearch(FlightTable table, List<Flight> flights) {
+        this.table = table;
+        int cityCount = table.cityCount();
+        List<List<Flight>> bySource = new ArrayList<>(cityCount);
+        for (int city = 0; city < cityCount; city++) {
+            bySource.add(new ArrayList<>());
+        }
+        for (Flight flight : flights) {
+            bySource.get(flight.sourceId()).add(flight);
+        }
+        outgoing = new DepartureIndex.Schedule[cityCount];
+        destinationIds = new int[cityCount][];
+        for (int city = 0; city < cityCount; city++) {
+            outgoing[city] = new DepartureIndex.Schedule(bySource.get(city));
+            Flight[] out = outgoing[city].flights;
+            destinationIds[city] = new int[out.length];
+            for (int i = 0; i < out.length; i++) {
+                destinationIds[city][i] = out[i].destinationId();
+            }
+        }
+        routes = new int[cityCount][];
+        routeFares = new long[cityCount][];
+        routeMinutes = new int[cityCount][];
+        // Scratch slots per destination, reset after each city
+        int[] slot = new int[cityCount];
+        Arrays.fill(slot, -1);
+        for (int city = 0; city < cityCount; city++) {
+            Flight[] out = outgoing[city].flights;
+            int[] served = new int[out.length];
+            long[] fares = new long[out.length];
+            int[] minutes = new int[out.length];
+            int count = 0;
+            for (Flight flight : out) {
+                int destination = flight.destinationId();
+                int s = slot[destination];
+                if (s < 0) {
+                    s = slot[destination] = count++;
+                    served[s] = destination;
+                    fares[s] = flight.basePaise();
+                    minutes[s] = flight.durationMinutes();
+                } else {
+                    fares[s] = Math.min(fares[s], flight.basePaise());
+                    minutes[s] = Math.min(minutes[s], flight.durationMinutes());
+                }
+            }
+            for (int s = 0; s < count; s++) {
+                slot[served[s]] = -1;
+            }
+            routes[city] = Arrays.copyOf(served, count);
+            routeFares[city] = Arrays.copyOf(fares, count);
+            routeMinutes[city] = Arrays.copyOf(minutes, count);
+        }
+    }
+
+    // Cities with at least one flight in or out, by name
+    List<String> getCities() {
+        boolean[] served = new boolean[outgoing.length];
+        for (int city = 0; city < outgoing.length; city++) {
+            if (outgoing[city].flights.length > 0) served[city] = true;
+            for (int destination : destinationIds[city]) {
+                served[destination] = true;
+            }
+        }
+        List<String> sorted = new ArrayList<>();
+        for (int city = 0; city < served.length; city++) {
+            if (served[city]) sorted.add(table.cityName(city));
+        }
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    // Returns up to k itineraries with at most maxLegs flights, each connection leaving at least
+    // minConnection and at most maxLayover minutes after the previous arrival. Flights without
+    // seats for the whole party are skipped.
+    //
+    // A connection scan starts at the first departure after the minimum connection and stops at
+    // the maximum layover, and never enters a city that cannot reach the destination in the legs
+    // left. Partial itineraries are dropped when k others at the same city arrive no later, cost no
+    // more, used no more legs and set off no earlier, or when even the least fare and time their
+    // remaining legs can add leaves them worse than k complete itineraries found. The first rule is
+    // exact when the layover window spans a whole day, since an earlier arrival then reaches every
+    // departure a later one can, possibly a day sooner; for shorter windows only arrivals a whole
+    // number of days apart compare.
+    List<Itinerary> search(String from, String to, int k, Objective objective, int partySize,
+                           int maxLegs, int minConnection, int maxLayover) {
+        int source = table.findCity(from);
+        int target = table.findCity(to);
+        if (source < 0 || target < 0 || source >= outgoing.length || target >= outgoing.length
+            || source == target || k <= 0) {
+            return Collections.emptyList();
+        }
+
+        // Ordered by the bounds, which equal the true totals at the destination
+        Comparator<Label> order = objective == Objective.CHEAPEST
+            ? Comparator.<Label>comparingLong(l -> l.minCost).thenComparingInt(l -> l.minMinutes)
+            : Comparator.<Label>comparingInt(l -> l.minMinutes).thenComparingLong(l -> l.minCost);
+        Frontier frontier = new Frontier(outgoing.length, target, k, order, maxLayover - minConnection >= MINUTES_PER_DAY);
+        CostToGo toGo = costToGo(target, maxLegs, minConnection);
+
+        Flight[] first = outgoing[source].flights;
+        for (int i = 0; i < first.length; i++) {
+            Flight flight = first[i];
+            if (flight.availableSeats() < partySize || !toGo.reachable(destinationIds[source][i], maxLegs - 1)) continue;
+            frontier.offer(new Label(destinationIds[source][i], flight, null, flight.departureMinute(),
+                flight.departureMinute() + flight.durationMinutes(), flight.getFare(Fares.FareClass.STANDARD), toGo));
+        }
+
+        // Extensions never lower either bound, so targets leave the queue best first
+        List<Itinerary> results = new ArrayList<>(k);
+        Label label;
+        while (results.size() < k && (label = frontier.queue.poll()) != null) {
+            if (label.city == target) {
+                results.add(toItinerary(label));
+                continue;
+            }
+            if (label.legs >= maxLegs) continue;
+
+            int ready = label.arrival + minConnection;
+            int day = ready - Math.floorMod(ready, MINUTES_PER_DAY);
+            DepartureIndex.Schedule schedule = outgoing[label.city];
+            Flight[] out = schedule.flights;
+            int[] minutes = schedule.minutes;
+            int[] destinations = destinationIds[label.city];
+            int start = schedule.lowerBound(ready - day);
+            int legsLeft = maxLegs - label.legs - 1;
+            // Each flight once, in departure order from the ready time, wrapping into the next day
+            for (int step = 0; step < out.length; step++) {
+                int i = start + step;
+                int departure = day + (i < out.length ? minutes[i] : minutes[i - out.length] + MINUTES_PER_DAY);
+                if (departure - label.arrival > maxLayover) break;
+                if (i >= out.length) i -= out.length;
+                if (!toGo.reachable(destinations[i], legsLeft)) continue;
+                Flight flight = out[i];
+                if (flight.availableSeats() < partySize || visits(label, destinations[i], source)) continue;
+                frontier.offer(new Label(destinations[i], flight, label, departure,
+                    departure + flight.durationMinutes(), label.cost + flight.getFare(Fares.FareClass.STANDARD), toGo));
+            }
+        }
+        return results;
+    }
+
+    // The search queue with its pruning: the labels kept at each city for dominance checks, and
+    // the k best complete itineraries queued so far as a bound
+    private static final class Frontier {
+        final PriorityQueue<Label> queue;
+        final List<List<Label>> kept;
+        final PriorityQueue<Label> best;
+        final int target;
+        final int k;
+        final Comparator<Label> order;
+        final boolean wholeDay;
+
+        Frontier(int cities, int target, int k, Comparator<Label> order, boolean wholeDay) {
+            this.queue = new PriorityQueue<>(order);
+            this.kept = new ArrayList<>(Collections.nCopies(cities, null));
+            this.best = new PriorityQueue<>(order.reversed());
+            this.target = target;
+            this.k = k;
+            this.order = order;
+            this.wholeDay = wholeDay;
+        }
+
+        void offer(Label label) {
+            // Extending a label never makes it cheaper or shorter, so one already worse than k
+            // complete itineraries cannot lead to a better one
+            if (best.size() == k && order.compare(label, best.peek()) > 0) return;
+            List<Label> labels = kept.get(label.city);
+            if (labels == null) {
+                labels = new ArrayList<>();
+                kept.set(label.city, labels);
+            } else if (dominated(labels, label)) {
+                return;
+            }
+            labels.add(label);
+            queue.add(label);
+            if (label.city == target) {
+                best.add(label);
+                if (best.size() > k) best.poll();
+            }
+        }
+
+        private boolean dominated(List<Label> labels, Label label) {
+            int count = 0;
+            for (Label other : labels) {
+                if (other.arrival <= label.arrival && other.cost <= label.cost && other.legs <= label.legs
+                    && other.firstDeparture >= label.firstDeparture
+                    && (wholeDay || (label.arrival - other.arrival) % MINUTES_PER_DAY == 0)
+                    && ++count >= k) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // Relaxes the route minimums outward from the destination one leg at a time; every connection
+    // waits at least minConnection
+    private CostToGo costToGo(int target, int maxLegs, int minConnection) {
+        CostToGo toGo = new CostToGo(outgoing.length, maxLegs);
+        Arrays.fill(toGo.fares[0], CostToGo.NO_FARE);
+        Arrays.fill(toGo.minutes[0], CostToGo.NO_ROUTE);
+        toGo.fares[0][target] = 0;
+        toGo.minutes[0][target] = 0;
+        for (int legs = 1; legs <= maxLegs; legs++) {
+            long[] fares = toGo.fares[legs];
+            int[] minutes = toGo.minutes[legs];
+            long[] nextFares = toGo.fares[legs - 1];
+            int[] nextMinutes = toGo.minutes[legs - 1];
+            for (int city = 0; city < outgoing.length; city++) {
+                long fare = CostToGo.NO_FARE;
+                int time = CostToGo.NO_ROUTE;
+                if (city == target) {
+                    fare = 0;
+                    time = 0;
+                } else {
+                    for (int r = 0; r < routes[city].length; r++) {
+                        int next = routes[city][r];
+                        if (nextFares[next] >= CostToGo.NO_FARE) continue;
+                        fare = Math.min(fare, routeFares[city][r] + nextFares[next]);
+                        time = Math.min(time, minConnection + routeMinutes[city][r] + nextMinutes[next]);
+                    }
+                }
+                fares[city] = fare;
+                minutes[city] = time;
+            }
+        }
+        return toGo;
+    }
+
+    private static boolean visits(Label label, int city, int source) {
+        if (city == source) return true;
+        for (Label l = label; l != null; l = l.prev) {
+            if (l.city == city) return true;
+        }
+        return false;
+    }
+
+    private static Itinerary toItinerary(Label label) {
+        Flight[] legs = new Flight[label.legs];
+        int[] departures = new int[label.legs];
+        for (Label l = label; l != null; l = l.prev) {
+            legs[l.legs - 1] = l.flight;
+            departures[l.legs - 1] = l.departure;
+        }
+        return new Itinerary(Arrays.asList(legs), departures, label.arrival, label.cost);
+    }
+}
@@ -0,0 +1,498 @@
+package flightbooking;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+// Drives the engine with a seeded synthetic workload at growing catalog sizes and reports
+// throughput, latency, oversell and consistency checks, and heap footprint at each step.
+// The catalog and every worker's operation stream follow from the seed, so a step can be rerun
+// exactly; only the interleaving of threads differs between runs.
+// Run with: java -cp booking/target/classes flightbooking.LoadGenerator [--steps 1000,10000,100000]
+//   [--cities 60] [--users n] [--threads 16] [--ops 200000] [--mix search=60,connect=5,book=25,cancel=10]
+//   [--skew 2] [--seed 42] [--data dir]
+public class LoadGenerator {
+    // Ordered roughly by traffic, so hub weighting favours the first few. The first ten are the
+    // cities of the default catalog in Main.
+    static final List<String> INDIAN_CITIES = Arrays.asList("Delhi", "Mumbai", "Chennai", "Kolkata", "Bangalore",
+        "Hyderabad", "Jaipur", "Ahmedabad", "Goa", "Chandigarh", "Pune", "Kochi", "Lucknow", "Guwahati",
+        "Thiruvananthapuram", "Bhubaneswar", "Indore", "Patna", "Srinagar", "Nagpur", "Coimbatore", "Varanasi",
+        "Amritsar", "Visakhapatnam", "Vadodara", "Mangalore", "Ranchi", "Raipur", "Madurai", "Bhopal", "Udaipur",
+        "Dehradun", "Surat", "Tiruchirappalli", "Bagdogra", "Port Blair", "Leh", "Jammu", "Imphal", "Agartala");
+    static final List<String> INTERNATIONAL_CITIES = Arrays.asList("Dubai", "Singapore", "London", "Bangkok",
+        "New York", "Paris", "Tokyo", "Toronto", "Abu Dhabi", "Doha", "Kuala Lumpur", "Muscat", "Hong Kong",
+        "Frankfurt", "Colombo", "Kathmandu", "Riyadh", "Jeddah", "Kuwait", "Sydney", "Amsterdam", "Dhaka",
+        "Male", "San Francisco", "Melbourne", "Zurich", "Chicago", "Seoul", "Istanbul", "Nairobi");
+    private static final String[] DOMESTIC_AIRLINES = {"AI", "6E", "UK", "SG", "QP", "IX"};
+    private static final String[] INTERNATIONAL_AIRLINES = {"AI", "6E", "EK", "SQ", "BA", "QR", "LH", "TG"};
+    // Common narrow- and wide-body configurations
+    private static final int[] DOMESTIC_SEATS = {78, 180, 180, 186, 186, 189, 222, 232};
+    private static final int[] INTERNATIONAL_SEATS = {180, 186, 256, 280, 298, 342, 400};
+
+    enum Op { SEARCH, CONNECT, BOOK, CANCEL }
+
+    // Error lines the engine printed while a step ran
+    private static final AtomicLong engineErrors = new AtomicLong();
+
+    // One scale step's measurements
+    static final class StepResult {
+        int flights, cities, users;
+        long ops;
+        double seconds;
+        final LatencyHistogram[] latencies = new LatencyHistogram[Op.values().length];
+        final AtomicLongArray outcomes = new AtomicLongArray(BookingSystem.PartyBooking.Status.values().length);
+        final AtomicLong cancelled = new AtomicLong();
+        final AtomicLong cancelMisses = new AtomicLong();
+        final AtomicLong searchResults = new AtomicLong();
+        final AtomicLong oversellSeen = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        long engineErrors;
+        long seatsSold, liveBookings;
+        int inventoryMismatches, ledgerMismatches, duplicateSeats, replayMismatches;
+        long journalNet;
+        long corruptLines;
+        long heapBaseline, heapCatalog, heapAfterRun, diskBytes;
+
+        StepResult() {
+            for (Op op : Op.values()) {
+                latencies[op.ordinal()] = new LatencyHistogram(op.name().toLowerCase());
+            }
+        }
+
+        boolean ok() {
+            return oversellSeen.get() == 0 && errors.get() == 0 && engineErrors == 0 && inventoryMismatches == 0 && ledgerMismatches == 0
+                && duplicateSeats == 0 && replayMismatches == 0 && corruptLines == 0 && journalNet == liveBookings;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] steps = {1000, 10000, 100000};
+        int cities = 60;
+        int users = -1;
+        int threads = 16;
+        long ops = 200_000;
+        int[] mix = parseMix("search=60,connect=5,book=25,cancel=10");
+        double skew = 2;
+        long seed = 42;
+        Path dataDir = null;
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals("--steps")) steps = Arrays.stream(args[++i].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+            else if (args[i].equals("--cities")) cities = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--users")) users = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--threads")) threads = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--ops")) ops = Long.parseLong(args[++i]);
+            else if (args[i].equals("--mix")) mix = parseMix(args[++i]);
+            else if (args[i].equals("--skew")) skew = Double.parseDouble(args[++i]);
+            else if (args[i].equals("--seed")) seed = Long.parseLong(args[++i]);
+            else if (args[i].equals("--data")) dataDir = Paths.get(args[++i]);
+        }
+
+        if (cities < 2 || threads < 1) throw new IllegalArgumentException("Need at least two cities and one thread");
+
+        PrintStream out = System.out;
+        System.setOut(errorsOnly(out));
+        out.printf("Load generator: seed=%d cities=%d threads=%d ops/step=%d mix=%s skew=%.1f heap max=%d MB%n",
+            seed, cities, threads, ops, formatMix(mix), skew, Runtime.getRuntime().maxMemory() >> 20);
+        List<StepResult> results = new ArrayList<>();
+        for (int step = 0; step < steps.length; step++) {
+            int flights = steps[step];
+            int population = users > 0 ? users : Math.max(1000, flights * 2);
+            Path stepDir = dataDir != null ? dataDir.resolve("step-" + flights) : Files.createTempDirectory("loadgen");
+            Files.createDirectories(stepDir);
+            try {
+                StepResult result = runStep(stepDir, seed, step, cities, flights, population, threads, ops, mix, skew);
+                results.add(result);
+                printStep(out, result);
+            } finally {
+                if (dataDir == null) deleteRecursively(stepDir);
+            }
+        }
+        printSummary(out, results);
+
+        boolean ok = results.stream().allMatch(StepResult::ok);
+        out.println(ok ? "PASS: no overselling or inconsistency detected" : "FAIL: seat inventory inconsistent");
+        if (!ok) System.exit(1);
+    }
+
+    static StepResult runStep(Path dir, long seed, int step, int cities, int flights, int users, int threads,
+                              long ops, int[] mix, double skew) throws Exception {
+        StepResult result = new StepResult();
+        result.flights = flights;
+        result.users = users;
+        result.heapBaseline = heapUsed();
+        long errorsBefore = engineErrors.get();
+
+        BookingSystem system = new BookingSystem(dir);
+        List<String> cityNames = buildCatalog(system, seed, cities, flights);
+        system.recover();
+        result.cities = cityNames.size();
+        String[] population = new String[users];
+        for (int i = 0; i < users; i++) {
+            population[i] = String.format("user%07d", i);
+        }
+        List<Flight> catalog = system.table.flights();
+        // Builds the connection graph before the clock starts, as a warmed-up server would have
+        system.getItinerarySearch();
+        result.heapCatalog = heapUsed();
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        long perThread = ops / threads;
+        result.ops = perThread * threads;
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(seed * 1_000_003 + step * 1009L + t);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    runWorker(system, catalog, cityNames, population, random, perThread, mix, skew, result);
+                } catch (Exception e) {
+                    result.errors.incrementAndGet();
+                    System.out.println("Error in load worker: " + e);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-worker-" + t);
+            thread.start();
+        }
+
+        // Sweeps the catalog while the workers run, looking for a seat count outside its bounds
+        Thread monitor = new Thread(() -> {
+            while (done.getCount() > 0) {
+                for (Flight flight : catalog) {
+                    int available = flight.availableSeats();
+                    if (available < 0 || available > flight.totalSeats()) result.oversellSeen.incrementAndGet();
+                }
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "load-monitor");
+        monitor.setDaemon(true);
+        monitor.start();
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+        result.seconds = (System.nanoTime() - startNanos) / 1e9;
+        monitor.join();
+
+        checkInventory(system, catalog, population, result);
+        result.heapAfterRun = heapUsed();
+        int[] booked = new int[catalog.size()];
+        for (int i = 0; i < booked.length; i++) {
+            booked[i] = catalog.get(i).bookedSeats();
+        }
+        int[] bookingsPerUser = new int[users];
+        for (int i = 0; i < users; i++) {
+            bookingsPerUser[i] = system.getBookings(population[i]).size();
+        }
+        system.close();
+
+        BookingAnalytics.Report journal = new BookingAnalytics(system.table).analyze(dir.resolve("bookings.journal"));
+        result.journalNet = journal.bookings - journal.cancellations;
+        result.corruptLines = journal.corrupt;
+        result.diskBytes = diskBytes(dir);
+        result.replayMismatches = checkReplay(dir, seed, cities, flights, population, booked, bookingsPerUser);
+        result.engineErrors = engineErrors.get() - errorsBefore;
+        return result;
+    }
+
+    // A synthetic catalog that depends only on the seed and sizes: hub-weighted routes, real seat
+    // configurations, and fares, times and block times typical of the market
+    static List<String> buildCatalog(BookingSystem system, long seed, int cities, int flights) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int international = Math.min(INTERNATIONAL_CITIES.size(), cities / 3);
+        List<String> indian = new ArrayList<>();
+        for (int i = 0; i < cities - international; i++) {
+            // Past the real names, numbered towns keep the population growing
+            indian.add(i < INDIAN_CITIES.size() ? INDIAN_CITIES.get(i) : "Town " + (i - INDIAN_CITIES.size() + 1));
+        }
+        List<String> abroad = new ArrayList<>(INTERNATIONAL_CITIES.subList(0, international));
+        for (int i = 0; i < flights; i++) {
+            boolean isInternational = !abroad.isEmpty() && random.nextInt(4) == 0;
+            String source = indian.get(pick(random, indian.size(), 2));
+            String destination;
+            if (isInternational) {
+                destination = abroad.get(pick(random, abroad.size(), 2));
+                if (random.nextBoolean()) {
+                    String swap = source;
+                    source = destination;
+                    destination = swap;
+                }
+            } else {
+                do {
+                    destination = indian.get(pick(random, indian.size(), 2));
+                } while (destination.equals(source));
+            }
+            String[] airlines = isInternational ? INTERNATIONAL_AIRLINES : DOMESTIC_AIRLINES;
+            int[] configurations = isInternational ? INTERNATIONAL_SEATS : DOMESTIC_SEATS;
+            int seats = configurations[random.nextInt(configurations.length)];
+            int price = isInternational ? 12000 + random.nextInt(80) * 500 : 2500 + random.nextInt(66) * 100;
+            int duration = isInternational ? 180 + random.nextInt(157) * 5 : 60 + random.nextInt(25) * 5;
+            String departs = Flight.formatMinuteOfDay(300 + random.nextInt(228) * 5);
+            system.addFlight(airlines[random.nextInt(airlines.length)] + (1000 + i), source, destination, seats,
+                price, departs, duration);
+        }
+        List<String> names = new ArrayList<>(indian);
+        names.addAll(abroad);
+        return names;
+    }
+
+    static void runWorker(BookingSystem system, List<Flight> catalog, List<String> cities, String[] population,
+                          SplittableRandom random, long operations, int[] mix, double skew, StepResult result) {
+        Op[] ops = Op.values();
+        // Users this worker has booked for, so most cancellations find something to cancel
+        List<String> bookers = new ArrayList<>();
+        String worker = Thread.currentThread().getName();
+        long passengers = 0;
+        for (long n = 0; n < operations; n++) {
+            int roll = random.nextInt(100);
+            Op op = ops[ops.length - 1];
+            for (int i = 0; i < mix.length; i++) {
+                if (roll < mix[i]) {
+                    op = ops[i];
+                    break;
+                }
+            }
+            long start = System.nanoTime();
+            switch (op) {
+                case SEARCH: {
+                    Flight flight = catalog.get(pick(random, catalog.size(), skew));
+                    // One search in ten asks for a route that may not be flown
+                    String destination = random.nextInt(10) == 0 ? cities.get(random.nextInt(cities.size())) : flight.destination();
+                    int from = random.nextInt(DepartureIndex.MINUTES_PER_DAY);
+                    int to = (from + 60 * (2 + random.nextInt(7))) % DepartureIndex.MINUTES_PER_DAY;
+                    result.searchResults.addAndGet(system.getDepartures(flight.source(), destination, from, to).size());
+                    break;
+                }
+                case CONNECT: {
+                    String source = cities.get(pick(random, cities.size(), 2));
+                    String destination = cities.get(pick(random, cities.size(), 2));
+                    if (source.equals(destination)) destination = cities.get(random.nextInt(cities.size()));
+                    ItinerarySearch.Objective objective = random.nextBoolean() ? ItinerarySearch.Objective.CHEAPEST : ItinerarySearch.Objective.FASTEST;
+                    result.searchResults.addAndGet(system.searchItineraries(source, destination, 3, objective, 1 + random.nextInt(4)).size());
+                    break;
+                }
+                case BOOK: {
+                    String user = population[random.nextInt(population.length)];
+                    Flight flight = catalog.get(pick(random, catalog.size(), skew));
+                    List<BookingSystem.Passenger> party = party(random, worker + "-" + passengers);
+                    passengers += party.size();
+                    Fares.FareClass[] classes = Fares.FareClass.values();
+                    int tierRoll = random.nextInt(20);
+                    Waitlist.Tier tier = tierRoll == 0 ? Waitlist.Tier.PRIORITY : tierRoll < 7 ? Waitlist.Tier.STANDARD : null;
+                    system.ensureUserLoaded(user);
+                    BookingSystem.PartyBooking booking = system.bookParty(user, flight, classes[random.nextInt(classes.length)],
+                        random.nextInt(90), party, tier);
+                    result.outcomes.incrementAndGet(booking.status.ordinal());
+                    if (booking.status == BookingSystem.PartyBooking.Status.BOOKED || booking.status == BookingSystem.PartyBooking.Status.WAITLISTED) {
+                        bookers.add(user);
+                    }
+                    break;
+                }
+                case CANCEL: {
+                    String user = bookers.isEmpty() ? population[random.nextInt(population.length)] : bookers.get(random.nextInt(bookers.size()));
+                    system.ensureUserLoaded(user);
+                    List<BookingSystem.BookingRecord> records = system.getBookings(user);
+                    // Another worker may cancel the same booking first
+                    if (records.isEmpty()) {
+                        result.cancelMisses.incrementAndGet();
+                    } else {
+                        BookingSystem.BookingRecord record = records.get(random.nextInt(records.size()));
+                        if (system.cancelBooking(user, record.flight.flightNumber(), record.passengerName) != null) {
+                            result.cancelled.incrementAndGet();
+                        } else {
+                            result.cancelMisses.incrementAndGet();
+                        }
+                    }
+                    break;
+                }
+            }
+            result.latencies[op.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    // Mostly ones and twos, with the odd family bringing a child or an infant
+    private static List<BookingSystem.Passenger> party(SplittableRandom random, String prefix) {
+        int roll = random.nextInt(100);
+        int size = roll < 50 ? 1 : roll < 80 ? 2 : roll < 95 ? 3 + random.nextInt(2) : 5 + random.nextInt(2);
+        List<BookingSystem.Passenger> party = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int age = i < 2 ? 18 + random.nextInt(60) : random.nextInt(4) == 0 ? 1 : 3 + random.nextInt(14);
+            party.add(new BookingSystem.Passenger("Passenger " + prefix + "-" + i, age));
+        }
+        return party;
+    }
+
+    // An index skewed towards the front of the range; skew 1 is uniform
+    private static int pick(SplittableRandom random, int size, double skew) {
+        return Math.min(size - 1, (int) (size * Math.pow(random.nextDouble(), skew)));
+    }
+
+    // With the workers stopped, every flight's seat count must match its committed seats, and the
+    // users' bookings must account for each committed seat exactly once
+    private static void checkInventory(BookingSystem system, List<Flight> catalog, String[] population, StepResult result) {
+        int[] live = new int[catalog.size()];
+        BitSet[] seats = new BitSet[catalog.size()];
+        for (String user : population) {
+            for (BookingSystem.BookingRecord record : system.getBookings(user)) {
+                int id = record.flight.id;
+                live[id]++;
+                result.liveBookings++;
+                if (seats[id] == null) seats[id] = new BitSet();
+                if (record.seat >= 0 && seats[id].get(record.seat)) result.duplicateSeats++;
+                if (record.seat >= 0) seats[id].set(record.seat);
+            }
+        }
+        for (Flight flight : catalog) {
+            int available = flight.availableSeats();
+            result.seatsSold += flight.totalSeats() - available;
+            if (available < 0 || available > flight.totalSeats() || flight.totalSeats() - available != flight.bookedSeats()) {
+                result.inventoryMismatches++;
+            }
+            if (live[flight.id] != flight.bookedSeats()) result.ledgerMismatches++;
+        }
+    }
+
+    // Rebuilds the step from the seed and the journal alone, with the snapshot removed, and counts
+    // flights and users whose bookings came back different
+    private static int checkReplay(Path dir, long seed, int cities, int flights, String[] population,
+                                   int[] booked, int[] bookingsPerUser) throws IOException {
+        Files.deleteIfExists(dir.resolve("flights.snapshot"));
+        BookingSystem replayed = new BookingSystem(dir);
+        int mismatches = 0;
+        try {
+            buildCatalog(replayed, seed, cities, flights);
+            replayed.recover();
+            List<Flight> catalog = replayed.table.flights();
+            for (int i = 0; i < booked.length; i++) {
+                if (catalog.get(i).bookedSeats() != booked[i]) mismatches++;
+            }
+            for (int i = 0; i < population.length; i++) {
+                replayed.ensureUserLoaded(population[i]);
+                if (replayed.getBookings(population[i]).size() != bookingsPerUser[i]) mismatches++;
+            }
+        } finally {
+            replayed.close();
+        }
+        return mismatches;
+    }
+
+    // The engine reports to the console as it goes; this keeps its errors and drops the rest
+    private static PrintStream errorsOnly(PrintStream console) {
+        return new PrintStream(OutputStream.nullOutputStream()) {
+            @Override
+            public void println(String line) {
+                if (line != null && line.startsWith("Error")) {
+                    engineErrors.incrementAndGet();
+                    console.println(line);
+                }
+            }
+        };
+    }
+
+    private static long heapUsed() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        memory.gc();
+        memory.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long diskBytes(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    // "search=60,book=30,cancel=10" as cumulative percentages in Op order; weights need not sum to 100
+    static int[] parseMix(String spec) {
+        int[] weights = new int[Op.values().length];
+        for (String part : spec.split(",")) {
+            String[] pair = part.split("=");
+            weights[Op.valueOf(pair[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(pair[1].trim());
+        }
+        int total = Arrays.stream(weights).sum();
+        if (total <= 0) throw new IllegalArgumentException("Invalid mix: " + spec);
+        int[] cumulative = new int[weights.length];
+        int sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = (int) Math.round(100.0 * sum / total);
+        }
+        return cumulative;
+    }
+
+    private static String formatMix(int[] cumulative) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < cumulative.length; i++) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(Op.values()[i].name().toLowerCase()).append('=').append(cumulative[i] - (i > 0 ? cumulative[i - 1] : 0));
+        }
+        return sb.toString();
+    }
+
+    private static void printStep(PrintStream out, StepResult result) {
+        out.printf("%n== %d flights, %d cities, %d users: %d ops in %.2f s (%.0f ops/s)%n", result.flights, result.cities,
+            result.users, result.ops, result.seconds, result.ops / result.seconds);
+        out.printf("%-10s %10s %10s %10s %10s %10s%n", "Operation", "Count", "p50 (us)", "p99 (us)", "p999 (us)", "Max (us)");
+        for (LatencyHistogram histogram : result.latencies) {
+            if (histogram.count() == 0) continue;
+            out.printf("%-10s %10d %10.1f %10.1f %10.1f %10.1f%n", histogram.name, histogram.count(),
+                histogram.percentile(0.50) / 1000.0, histogram.percentile(0.99) / 1000.0,
+                histogram.percentile(0.999) / 1000.0, histogram.max() / 1000.0);
+        }
+        StringBuilder outcomes = new StringBuilder();
+        for (BookingSystem.PartyBooking.Status status : BookingSystem.PartyBooking.Status.values()) {
+            long count = result.outcomes.get(status.ordinal());
+            if (count > 0) outcomes.append(' ').append(status.name().toLowerCase()).append('=').append(count);
+        }
+        out.println("Bookings:" + outcomes + " | Cancelled: " + result.cancelled.get() + " (missed " + result.cancelMisses.get()
+            + ") | Search results: " + result.searchResults.get());
+        out.printf("Checks: oversell seen=%d | inventory mismatches=%d | ledger mismatches=%d | duplicate seats=%d"
+                + " | journal net=%d vs live=%d | corrupt lines=%d | replay mismatches=%d | errors=%d%n",
+            result.oversellSeen.get(), result.inventoryMismatches, result.ledgerMismatches, result.duplicateSeats,
+            result.journalNet, result.liveBookings, result.corruptLines, result.replayMismatches, result.errors.get() + result.engineErrors);
+        long catalogBytes = Math.max(0, result.heapCatalog - result.heapBaseline);
+        long bookingBytes = Math.max(0, result.heapAfterRun - result.heapCatalog);
+        out.printf("Memory: catalog %.1f MB (%d B/flight) | after run %.1f MB (%d B/live booking) | on disk %.1f MB%n",
+            catalogBytes / 1048576.0, catalogBytes / Math.max(1, result.flights), result.heapAfterRun / 1048576.0,
+            bookingBytes / Math.max(1, result.liveBookings), result.diskBytes / 1048576.0);
+    }
+
+    private static void printSummary(PrintStream out, List<StepResult> results) {
+        out.printf("%n%-9s %9s %10s %11s %11s %11s %10s %10s  %s%n", "Flights", "Users", "Ops/s", "search p99",
+            "book p99", "cancel p99", "Sold", "Heap MB", "Checks");
+        for (StepResult result : results) {
+            out.printf("%-9d %9d %10.0f %11.1f %11.1f %11.1f %10d %10.1f  %s%n", result.flights, result.users,
+                result.ops / result.seconds, result.latencies[Op.SEARCH.ordinal()].percentile(0.99) / 1000.0,
+                result.latencies[Op.BOOK.ordinal()].percentile(0.99) / 1000.0,
+                result.latencies[Op.CANCEL.ordinal()].percentile(0.99) / 1000.0, result.seatsSold,
+                result.heapAfterRun / 1048576.0, result.ok() ? "ok" : "FAILED");
+        }
+    }
+}
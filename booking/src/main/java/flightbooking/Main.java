@@ -0,0 +1,1596 @@
+package flightbooking;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// One row of a FlightTable. Every property is read from the table's columns, so a flight costs a
+// reference and two ints of its own.
+class Flight {
+    // Seat counts are changed only by CAS so concurrent sessions can never oversell
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle SEAT_MAPS = MethodHandles.arrayElementVarHandle(SeatMap[].class);
+    private static final VarHandle WAITLISTS = MethodHandles.arrayElementVarHandle(Waitlist[].class);
+
+    private final FlightTable.Chunk chunk;
+    private final int slot;
+    // Position in the table, in the order flights were added
+    final int id;
+
+    Flight(FlightTable.Chunk chunk, int slot, int id) {
+        this.chunk = chunk;
+        this.slot = slot;
+        this.id = id;
+    }
+
+    // Parses a display time such as "08:00 AM", or a 24-hour time such as "14:00", into minutes after midnight
+    static int parseMinuteOfDay(String time) {
+        String[] parts = time.trim().split("[: ]+");
+        int hour = Integer.parseInt(parts[0]);
+        int minute = Integer.parseInt(parts[1]);
+        if (parts.length > 2) {
+            hour %= 12;
+            if (parts[2].equalsIgnoreCase("PM")) hour += 12;
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            throw new IllegalArgumentException("Invalid time: " + time);
+        }
+        return hour * 60 + minute;
+    }
+
+    // The inverse of parseMinuteOfDay, e.g. 810 is "01:30 PM"
+    static String formatMinuteOfDay(int minuteOfDay) {
+        int hour = minuteOfDay / 60;
+        return String.format("%02d:%02d %s", hour % 12 == 0 ? 12 : hour % 12, minuteOfDay % 60, hour < 12 ? "AM" : "PM");
+    }
+
+    public String flightNumber() {
+        return chunk.flightNumbers[slot];
+    }
+
+    int sourceId() {
+        return chunk.sources[slot];
+    }
+
+    int destinationId() {
+        return chunk.destinations[slot];
+    }
+
+    public String source() {
+        return chunk.table.cityName(chunk.sources[slot]);
+    }
+
+    public String destination() {
+        return chunk.table.cityName(chunk.destinations[slot]);
+    }
+
+    public String departureTime() {
+        return formatMinuteOfDay(chunk.departureMinutes[slot]);
+    }
+
+    int departureMinute() {
+        return chunk.departureMinutes[slot];
+    }
+
+    int durationMinutes() {
+        return chunk.durationMinutes[slot];
+    }
+
+    public int totalSeats() {
+        return chunk.totalSeats[slot];
+    }
+
+    public int availableSeats() {
+        return (int) INTS.getVolatile(chunk.availableSeats, slot);
+    }
+
+    int bookedSeats() {
+        return chunk.bookedSeats[slot];
+    }
+
+    // Base fare in paise
+    long basePaise() {
+        return chunk.basePaise[slot];
+    }
+
+    // Created on first use, so a flight nobody has booked carries no seat words
+    SeatMap seatMap() {
+        SeatMap seatMap = (SeatMap) SEAT_MAPS.getAcquire(chunk.seatMaps, slot);
+        if (seatMap != null) return seatMap;
+        SeatMap created = new SeatMap(totalSeats());
+        SeatMap raced = (SeatMap) SEAT_MAPS.compareAndExchangeRelease(chunk.seatMaps, slot, null, created);
+        return raced != null ? raced : created;
+    }
+
+    Waitlist waitlist() {
+        Waitlist waitlist = (Waitlist) WAITLISTS.getAcquire(chunk.waitlists, slot);
+        if (waitlist != null) return waitlist;
+        Waitlist created = new Waitlist(Waitlist.defaultCapacity());
+        Waitlist raced = (Waitlist) WAITLISTS.compareAndExchangeRelease(chunk.waitlists, slot, null, created);
+        return raced != null ? raced : created;
+    }
+
+    // A copy of the committed seat words for a snapshot, empty if no seat was ever assigned
+    long[] committedSeats() {
+        SeatMap seatMap = (SeatMap) SEAT_MAPS.getAcquire(chunk.seatMaps, slot);
+        return seatMap != null ? seatMap.committed.clone() : new long[0];
+    }
+
+    List<Waitlist.Entry> waitlistEntries() {
+        Waitlist waitlist = (Waitlist) WAITLISTS.getAcquire(chunk.waitlists, slot);
+        return waitlist != null ? waitlist.entries() : Collections.emptyList();
+    }
+
+    // Applies a journaled booking or cancellation; called only under the journal lock
+    void commitSeat(int seat, boolean booked) {
+        chunk.bookedSeats[slot] += booked ? 1 : -1;
+        if (seat >= 0 && seatMap().isValid(seat)) {
+            seatMap().commit(seat, booked);
+        }
+    }
+
+    // Sets the journaled seat count and committed seat words read from a snapshot
+    void restoreCommitted(int bookedSeats, long[] committedWords) {
+        chunk.bookedSeats[slot] = bookedSeats;
+        if (committedWords.length == 0) return;
+        long[] committed = seatMap().committed;
+        System.arraycopy(committedWords, 0, committed, 0, Math.min(committedWords.length, committed.length));
+    }
+
+    private boolean casSeats(int expected, int seats) {
+        return INTS.compareAndSet(chunk.availableSeats, slot, expected, seats);
+    }
+
+    // Atomically reserve exactly n seats, or none if fewer than n are free
+    public boolean tryReserveSeats(int n) {
+        if (n <= 0) return n == 0;
+        while (true) {
+            int seats = availableSeats();
+            if (seats < n) return false;
+            if (casSeats(seats, seats - n)) {
+                if (seats == n) chunk.table.availabilityChanged(this, false);
+                seatsChanged(seats - n);
+                return true;
+            }
+        }
+    }
+
+    // Atomically reserve up to n seats and return how many were taken
+    private int reserveUpTo(int n) {
+        while (true) {
+            int seats = availableSeats();
+            int take = Math.min(seats, n);
+            if (take <= 0) return 0;
+            if (casSeats(seats, seats - take)) {
+                if (seats == take) chunk.table.availabilityChanged(this, false);
+                seatsChanged(seats - take);
+                return take;
+            }
+        }
+    }
+
+    // Atomically reserve n seats and assign their identities, seated together where a row allows
+    public boolean reserveSeats(int n, int[] seats) {
+        if (!tryReserveSeats(n)) return false;
+        if (!seatMap().allocate(n, seats)) {
+            releaseSeats(n);
+            return false;
+        }
+        return true;
+    }
+
+    // Return n reserved seats that were never turned into bookings
+    public void releaseSeats(int n) {
+        if (n > 0) seatsFreed(n);
+    }
+
+    // Books up to numTickets of the free seats and returns how many; a party that wants to wait for
+    // the rest joins the waitlist under its account through BookingSystem.joinWaitlist
+    public int bookSeat(int numTickets) {
+        return reserveUpTo(numTickets);
+    }
+
+    public void cancelSeat() {
+        cancelSeat(-1);
+    }
+
+    // Frees a seat; call promoteWaitlisted afterwards to hand freed seats to waiting parties
+    public void cancelSeat(int seat) {
+        // Free the seat before the count so a counted seat always has a free bit
+        if (seat >= 0) seatMap().release(seat);
+        seatsFreed(1);
+    }
+
+    private void seatsFreed(int n) {
+        int before = (int) INTS.getAndAdd(chunk.availableSeats, slot, n);
+        if (before == 0) chunk.table.availabilityChanged(this, true);
+        seatsChanged(before + n);
+    }
+
+    // Seats waiting parties in priority order; the caller turns each promotion into bookings
+    public List<Waitlist.Promotion> promoteWaitlisted() {
+        Waitlist waitlist = (Waitlist) WAITLISTS.getAcquire(chunk.waitlists, slot);
+        return waitlist != null ? waitlist.promote(this) : Collections.emptyList();
+    }
+
+    // Recompute free seats from the journaled bookings after a restart
+    void restoreSeats() {
+        int available = Math.max(0, totalSeats() - bookedSeats());
+        int before = (int) INTS.getAndSet(chunk.availableSeats, slot, available);
+        if ((before > 0) != (available > 0)) chunk.table.availabilityChanged(this, available > 0);
+        SeatMap seatMap = (SeatMap) SEAT_MAPS.getAcquire(chunk.seatMaps, slot);
+        if (seatMap != null) seatMap.restoreFromCommitted();
+        repriceFares();
+    }
+
+    // Passengers waiting, counting every member of each party
+    public int getWaitlistSize() {
+        Waitlist waitlist = (Waitlist) WAITLISTS.getAcquire(chunk.waitlists, slot);
+        return waitlist != null ? waitlist.waitingPassengers() : 0;
+    }
+
+    // Adult fare in paise for a booking made without a travel date, or Fares.UNAVAILABLE if the class is closed
+    public long getFare(Fares.FareClass fareClass) {
+        if (fareClass == Fares.FareClass.STANDARD) return (long) LONGS.getVolatile(chunk.standardFares, slot);
+        return getFare(fareClass, Fares.NO_DATE);
+    }
+
+    public long getFare(Fares.FareClass fareClass, int daysToDeparture) {
+        return Fares.fare(basePaise(), fareBucket(), Fares.timeBucket(daysToDeparture), fareClass);
+    }
+
+    private int fareBucket() {
+        return (int) INTS.getVolatile(chunk.fareBuckets, slot);
+    }
+
+    private void seatsChanged(int available) {
+        if (Fares.loadBucket(totalSeats(), available) != fareBucket()) repriceFares();
+    }
+
+    // Loops until the bucket matches the live count, so a change racing with a reprice is never lost
+    private synchronized void repriceFares() {
+        int bucket;
+        while ((bucket = Fares.loadBucket(totalSeats(), availableSeats())) != fareBucket()) {
+            LONGS.setVolatile(chunk.standardFares, slot, Fares.fare(basePaise(), bucket, 0, Fares.FareClass.STANDARD));
+            INTS.setVolatile(chunk.fareBuckets, slot, bucket);
+        }
+    }
+
+    public String toString() {
+        return "Flight from " + source() + " to " + destination() + " | Available Seats: " + availableSeats();
+    }
+}
+
+class BookingSystem {
+    // Map of username to list of booking records. Each list is guarded by its own monitor, so
+    // concurrent sessions only contend when they belong to the same user
+    private final Map<String, List<BookingRecord>> userBookings = new ConcurrentHashMap<>();
+
+    // The catalog columns, and indexes over them maintained by addFlight so lookups never scan
+    final FlightTable table = new FlightTable();
+    private final List<Flight> flightList = table.flights();
+    private final Map<String, Flight> flightsByNumber = new HashMap<>();
+    private final Map<Long, List<Flight>> flightsByRoute = new HashMap<>();
+    // Destination and source menus, and open flights per route, kept current as flights are added and sell out
+    private final SearchFacets facets = new SearchFacets(table);
+    // Each route's flights sorted by departure time, for time-window and next-departure queries
+    private final DepartureIndex departures = new DepartureIndex();
+
+    static final Set<String> DOMESTIC_CITIES = new HashSet<>(Arrays.asList("Delhi", "Mumbai", "Chennai", "Kolkata", "Bangalore", "Hyderabad", "Jaipur", "Ahmedabad", "Goa"));
+    static final Set<String> INTERNATIONAL_CITIES = new HashSet<>(Arrays.asList("Singapore", "London", "Dubai", "Bangkok", "New York", "Paris", "Tokyo", "Toronto"));
+
+    private final Path dataDir;
+    private BookingJournal journal;
+    // Logins, bookings and cancellations, written off the request path
+    final AuditLog audit;
+    private final BookingMetrics metrics = new BookingMetrics(flightList);
+    // Each user's bookings, partitioned by username hash; replaces the per-user text files
+    private final BookingStore store;
+    // Journal position covered by the snapshot the catalog was loaded from
+    private long snapshotSeq;
+    private long snapshotOffset;
+    private final int snapshotInterval = Integer.getInteger("booking.snapshot.interval", 10000);
+    private final AtomicLong entriesSinceSnapshot = new AtomicLong();
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+    // Held shared from a journal commit until its store write is done, and exclusively while a
+    // snapshot takes its journal position, so every entry a snapshot covers is already in the store
+    private final ReadWriteLock storeBarrier = new ReentrantReadWriteLock();
+    // Seats held for parties still entering passenger details; lapsed holds go to waiting parties
+    private final SeatHolds holds = new SeatHolds(Long.getLong("booking.hold.ttl.ms", 600_000),
+        Long.getLong("booking.hold.tick.ms", 100), this::holdsExpired);
+
+    public BookingSystem() {
+        this(Paths.get(""));
+    }
+
+    // Loads the catalog from the latest snapshot, if one exists; call recover() once the catalog is complete
+    public BookingSystem(Path dataDir) {
+        this.dataDir = dataDir;
+        try {
+            audit = new AuditLog(dataDir.resolve("audit.log"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open audit log", e);
+        }
+        try {
+            store = new BookingStore(dataDir.resolve("bookings"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open booking store", e);
+        }
+        try {
+            FlightSnapshot snapshot = FlightSnapshot.read(dataDir.resolve("flights.snapshot"), table);
+            if (snapshot != null) {
+                for (Flight flight : snapshot.flights) {
+                    index(flight);
+                }
+                snapshotSeq = snapshot.lastSeq;
+                snapshotOffset = snapshot.journalOffset;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read flight snapshot", e);
+        }
+        metrics.register(dataDir.toAbsolutePath().toString());
+    }
+
+    public boolean hasFlights() {
+        return table.size() > 0;
+    }
+
+    // Replays the journal written after the snapshot over the catalog and the booking store, which
+    // may have missed the last writes before a crash, and opens the journal for new bookings.
+    // Waitlists come from the snapshot alone, as joins are not journaled; a party it kept waiting
+    // whose promotion the tail holds is dropped, so it is not booked twice.
+    public void recover() {
+        try {
+            Path journalPath = dataDir.resolve("bookings.journal");
+            boolean newJournal = !Files.exists(journalPath);
+            List<BookingJournal.Entry> tail = new ArrayList<>();
+            journal = new BookingJournal(journalPath, BookingJournal.durabilityFromProperty(), snapshotOffset, snapshotSeq, entry -> {
+                applyCommitted(entry);
+                tail.add(entry);
+            });
+            journal.setCommitListener(this::applyCommitted);
+            store.setJournaledSeq(journal.nextSeq() - 1);
+            store.reconcile(tail);
+            for (BookingJournal.Entry entry : tail) {
+                Flight flight = flightsByNumber.get(entry.flightNumber);
+                if (entry.type == BookingJournal.BOOK && flight != null && flight.getWaitlistSize() > 0) {
+                    flight.waitlist().remove(entry.username, entry.passengerName);
+                }
+            }
+            if (newJournal) {
+                importLegacyBookings(dataDir.resolve("bookings.txt"));
+            }
+            entriesSinceSnapshot.set(tail.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open booking journal", e);
+        }
+        for (Flight flight : flightList) {
+            flight.restoreSeats();
+        }
+        maybeSnapshot(0);
+    }
+
+    private void applyCommitted(BookingJournal.Entry entry) {
+        Flight flight = flightsByNumber.get(entry.flightNumber);
+        if (flight != null) {
+            flight.commitSeat(entry.seat, entry.type == BookingJournal.BOOK);
+        }
+    }
+
+    // Starts a background snapshot once enough journal entries have accumulated since the last one
+    private void maybeSnapshot(int newEntries) {
+        if (entriesSinceSnapshot.addAndGet(newEntries) < snapshotInterval || !snapshotRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Thread snapshotter = new Thread(() -> {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                System.out.println("Error writing flight snapshot: " + e.getMessage());
+            } finally {
+                snapshotRunning.set(false);
+            }
+        }, "flight-snapshot");
+        snapshotter.setDaemon(true);
+        snapshotter.start();
+    }
+
+    // The checkpoint waits until the journal is durable up to the captured position, so the
+    // snapshot never points past the end of the file a crash would leave behind. The store is
+    // fsynced first, since recovery replays only the journal after that position into it.
+    public void writeSnapshot() throws IOException {
+        List<Flight> flights = new ArrayList<>(flightList);
+        int[] booked = new int[flights.size()];
+        long[][] seats = new long[flights.size()][];
+        long[] position;
+        storeBarrier.writeLock().lock();
+        try {
+            position = journal.checkpoint(() -> {
+                for (int i = 0; i < booked.length; i++) {
+                    booked[i] = flights.get(i).bookedSeats();
+                    seats[i] = flights.get(i).committedSeats();
+                }
+                entriesSinceSnapshot.set(0);
+            });
+        } finally {
+            storeBarrier.writeLock().unlock();
+        }
+        store.force();
+        List<List<Waitlist.Entry>> waitlists = new ArrayList<>(flights.size());
+        for (Flight flight : flights) {
+            waitlists.add(flight.waitlistEntries());
+        }
+        FlightSnapshot.write(dataDir.resolve("flights.snapshot"), position[0], position[1], flights, booked, seats, waitlists);
+    }
+
+    static class BookingRecord {
+        Flight flight;
+        String passengerName;
+        // Index into the flight's seat map, or -1 for bookings made before seats were assigned
+        int seat;
+        // Fare paid in paise, or 0 when not known (bookings imported from old files)
+        long farePaise;
+
+        BookingRecord(Flight flight, String passengerName) {
+            this(flight, passengerName, -1);
+        }
+
+        BookingRecord(Flight flight, String passengerName, int seat) {
+            this(flight, passengerName, seat, 0);
+        }
+
+        BookingRecord(Flight flight, String passengerName, int seat, long farePaise) {
+            this.flight = flight;
+            this.passengerName = passengerName;
+            this.seat = seat;
+            this.farePaise = farePaise;
+        }
+
+        String seatLabel() {
+            return seat >= 0 ? flight.seatMap().label(seat) : "Unassigned";
+        }
+    }
+
+    static class Passenger {
+        final String name;
+        final int age;
+
+        Passenger(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+
+        // Infants travel on a lap and need no seat
+        boolean needsSeat() {
+            return age > 2;
+        }
+
+        // How bookings and waitlists name the passenger; position counts from 1 within the party
+        String label(int position) {
+            return name + " (Passenger " + position + ", Age " + age + ")";
+        }
+
+        static int seatsNeeded(List<Passenger> party) {
+            int seats = 0;
+            for (Passenger passenger : party) {
+                if (passenger.needsSeat()) seats++;
+            }
+            return seats;
+        }
+
+        static List<String> seatedLabels(List<Passenger> party) {
+            List<String> labels = new ArrayList<>();
+            for (int i = 0; i < party.size(); i++) {
+                if (party.get(i).needsSeat()) labels.add(party.get(i).label(i + 1));
+            }
+            return labels;
+        }
+    }
+
+    // The outcome of booking a whole party: every seated passenger booked together, the party
+    // waitlisted as one entry, or nothing at all
+    static class PartyBooking {
+        // SAVE_FAILED: the journal could not record the booking, so its seats were released
+        enum Status { BOOKED, WAITLISTED, SOLD_OUT, WAITLIST_FULL, FARE_UNAVAILABLE, HOLD_EXPIRED, SAVE_FAILED }
+
+        final Status status;
+        final Flight flight;
+        // Seated passengers when booked, in party order
+        final List<BookingRecord> records;
+        // Passenger labels when waitlisted
+        final List<String> waitlisted;
+        int adults, children, infants;
+        long totalCost;
+
+        private PartyBooking(Status status, Flight flight, List<BookingRecord> records, List<String> waitlisted) {
+            this.status = status;
+            this.flight = flight;
+            this.records = records;
+            this.waitlisted = waitlisted;
+        }
+
+        static PartyBooking failed(Status status, Flight flight) {
+            return new PartyBooking(status, flight, Collections.emptyList(), Collections.emptyList());
+        }
+
+        // Records for a party already holding seats, one per passenger who needs a seat, priced
+        // from the adult fare the party was quoted
+        static PartyBooking seated(Flight flight, long adultFare, int[] seats, List<Passenger> party) {
+            PartyBooking booking = new PartyBooking(Status.BOOKED, flight, new ArrayList<>(), Collections.emptyList());
+            for (int i = 0; i < party.size(); i++) {
+                Passenger passenger = party.get(i);
+                long fare = Fares.forAge(adultFare, passenger.age);
+                booking.totalCost += fare;
+                if (!passenger.needsSeat()) {
+                    booking.infants++;
+                    continue;
+                }
+                if (passenger.age <= 12) booking.children++;
+                else booking.adults++;
+                booking.records.add(new BookingRecord(flight, passenger.label(i + 1), seats[booking.records.size()], fare));
+            }
+            return booking;
+        }
+    }
+
+    // Route graph for connection searches; dropped whenever the catalog changes
+    private volatile ItinerarySearch itinerarySearch;
+
+    public Flight addFlight(String flightNumber, String source, String destination, int totalSeats, double basePrice, String departureTime) {
+        return index(table.add(flightNumber, source, destination, totalSeats, basePrice, departureTime));
+    }
+
+    public Flight addFlight(String flightNumber, String source, String destination, int totalSeats, double basePrice, String departureTime, int durationMinutes) {
+        return index(table.add(flightNumber, source, destination, totalSeats, basePrice, departureTime, durationMinutes));
+    }
+
+    private Flight index(Flight flight) {
+        long routeKey = SearchFacets.routeKey(flight.sourceId(), flight.destinationId());
+        flightsByNumber.put(flight.flightNumber(), flight);
+        flightsByRoute.computeIfAbsent(routeKey, k -> new ArrayList<>()).add(flight);
+        facets.flightAdded(flight);
+        departures.invalidate(routeKey);
+        itinerarySearch = null;
+        return flight;
+    }
+
+    ItinerarySearch getItinerarySearch() {
+        ItinerarySearch search = itinerarySearch;
+        if (search == null) {
+            synchronized (this) {
+                search = itinerarySearch;
+                if (search == null) {
+                    search = new ItinerarySearch(table, flightList);
+                    itinerarySearch = search;
+                }
+            }
+        }
+        return search;
+    }
+
+    // Up to three legs; a connection may be any departure in the day after a one-hour minimum connection
+    public List<ItinerarySearch.Itinerary> searchItineraries(String source, String destination, int k,
+                                                             ItinerarySearch.Objective objective, int partySize) {
+        int minConnection = 60;
+        return getItinerarySearch().search(source, destination, k, objective, partySize, 3, minConnection,
+            DepartureIndex.MINUTES_PER_DAY + minConnection);
+    }
+
+    // Shows the cheapest and fastest itineraries between any two cities, including connections
+    public void searchConnectingFlights() {
+        ItinerarySearch search = getItinerarySearch();
+        List<String> cities = search.getCities();
+        if (cities.isEmpty()) {
+            System.out.println("No flights available.");
+            return;
+        }
+
+        Scanner scanner = new Scanner(System.in);
+        System.out.println("Cities:");
+        for (int i = 0; i < cities.size(); i++) {
+            System.out.println((i + 1) + ". " + cities.get(i));
+        }
+        System.out.print("Select source city (enter the number): ");
+        String sourceCity = cities.get(scanner.nextInt() - 1);
+        System.out.print("Select destination city (enter the number): ");
+        String destinationCity = cities.get(scanner.nextInt() - 1);
+        System.out.print("Enter number of travellers: ");
+        int partySize = scanner.nextInt();
+        scanner.nextLine();
+
+        for (ItinerarySearch.Objective objective : ItinerarySearch.Objective.values()) {
+            List<ItinerarySearch.Itinerary> itineraries = searchItineraries(sourceCity, destinationCity, 3, objective, partySize);
+            System.out.println((objective == ItinerarySearch.Objective.CHEAPEST ? "Cheapest" : "Fastest") +
+                " itineraries from " + sourceCity + " to " + destinationCity + ":");
+            if (itineraries.isEmpty()) {
+                System.out.println("No itineraries found.");
+            }
+            for (int i = 0; i < itineraries.size(); i++) {
+                System.out.println((i + 1) + ". " + itineraries.get(i));
+            }
+        }
+    }
+
+    public void displayFlights() {
+        if (table.size() == 0) {
+            System.out.println("No flights available.");
+            return;
+        }
+        for (int i = 0; i < table.size(); i++) {
+            Flight flight = table.get(i);
+            System.out.println((i + 1) + ". " + flight.source() + " to " + flight.destination());
+        }
+    }
+
+    public Flight getFlight(int index) {
+        return index >= 0 && index < table.size() ? table.get(index) : null;
+    }
+
+    public Flight getFlight(String flightNumber) {
+        return flightsByNumber.get(flightNumber);
+    }
+
+    public List<Flight> getFlights(String source, String destination) {
+        int sourceId = table.findCity(source);
+        int destinationId = table.findCity(destination);
+        if (sourceId < 0 || destinationId < 0) return Collections.emptyList();
+        List<Flight> flights = flightsByRoute.get(SearchFacets.routeKey(sourceId, destinationId));
+        return flights != null ? flights : Collections.emptyList();
+    }
+
+    // Flights on the route departing between two times of day, inclusive, in departure order.
+    // A window such as 22:00 to 02:00 runs past midnight.
+    public List<Flight> getDepartures(String source, String destination, int fromMinute, int toMinute) {
+        return schedule(source, destination).between(fromMinute, toMinute);
+    }
+
+    // Dated departures on the route between two instants; every flight departs daily
+    public List<DepartureIndex.Departure> getDepartures(String source, String destination, LocalDateTime from, LocalDateTime to) {
+        return DepartureIndex.between(schedule(source, destination), from, to);
+    }
+
+    // The next n dated departures on the route at or after an instant
+    public List<DepartureIndex.Departure> nextDepartures(String source, String destination, LocalDateTime after, int n) {
+        return DepartureIndex.next(schedule(source, destination), after, n);
+    }
+
+    private DepartureIndex.Schedule schedule(String source, String destination) {
+        int sourceId = table.findCity(source);
+        int destinationId = table.findCity(destination);
+        long routeKey = sourceId < 0 || destinationId < 0 ? -1 : SearchFacets.routeKey(sourceId, destinationId);
+        return departures.schedule(routeKey, getFlights(source, destination));
+    }
+
+    // Menus come from the cached facet snapshot, so they cost the size of the answer rather than the catalog
+    public List<String> getSources(String destination) {
+        return facets.snapshot().sources(destination);
+    }
+
+    public List<String> getDestinations(boolean isInternational) {
+        return facets.snapshot().destinations(isInternational ? FlightTable.INTERNATIONAL : FlightTable.DOMESTIC);
+    }
+
+    // Flights on the route that still have a free seat
+    public int getOpenFlights(String source, String destination) {
+        return facets.openFlights(source, destination);
+    }
+
+    public void displayFlightsByType(boolean isInternational, String username) {
+        if (table.size() == 0) {
+            System.out.println("No flights available.");
+            return;
+        }
+
+        Scanner scanner = new Scanner(System.in);
+
+        List<String> availableCities = getDestinations(isInternational);
+        if (availableCities.isEmpty()) {
+            System.out.println("No valid destinations found for this flight type.");
+            return;
+        }
+
+        System.out.println("Available destination cities:");
+        for (int i = 0; i < availableCities.size(); i++) {
+            System.out.println((i + 1) + ". " + availableCities.get(i));
+        }
+
+        System.out.print("Select destination city (enter the number): ");
+        int destinationChoice = scanner.nextInt();
+        scanner.nextLine(); 
+        String destinationCity = availableCities.get(destinationChoice - 1);
+
+        List<String> sourceOptions = getSources(destinationCity);
+        if (sourceOptions.isEmpty()) {
+            System.out.println("No source cities found for destination: " + destinationCity);
+            return;
+        }
+
+        System.out.println("Available source cities for " + destinationCity + ":");
+        for (int i = 0; i < sourceOptions.size(); i++) {
+            String source = sourceOptions.get(i);
+            System.out.println((i + 1) + ". " + source + " (" + facets.openFlights(source, destinationCity) + " of " +
+                facets.flights(source, destinationCity) + " flights with seats)");
+        }
+        System.out.print("Select source city (enter the number): ");
+        int sourceChoice = scanner.nextInt();
+        scanner.nextLine(); 
+        String sourceCity = sourceOptions.get(sourceChoice - 1);
+
+        System.out.print("Departure window, e.g. 10:00-14:00 (press Enter for any time): ");
+        String window = scanner.nextLine().trim();
+        int[] range = null;
+        if (!window.isEmpty()) {
+            try {
+                String[] bounds = window.split("\\s*-\\s*");
+                range = new int[] { Flight.parseMinuteOfDay(bounds[0]), Flight.parseMinuteOfDay(bounds[1]) };
+            } catch (RuntimeException e) {
+                System.out.println("Error reading departure window: " + e.getMessage() + ". Showing all departures.");
+            }
+        }
+
+        long searchStart = Metrics.start();
+        List<Flight> matchingFlights = range != null
+            ? getDepartures(sourceCity, destinationCity, range[0], range[1])
+            : getFlights(sourceCity, destinationCity);
+        // Only the lookup is timed; printing to the console is not part of the search
+        Metrics.record(Metrics.SEARCH, searchStart);
+        if (matchingFlights.isEmpty()) {
+            System.out.println("No flights found from " + sourceCity + " to " + destinationCity +
+                (range != null ? " departing " + window : ""));
+            return;
+        }
+
+        System.out.println("Flights from " + sourceCity + " to " + destinationCity + ":");
+        for (int i = 0; i < matchingFlights.size(); i++) {
+            Flight flight = matchingFlights.get(i);
+            System.out.println((i + 1) + ". Departure: " + flight.departureTime() +
+                " | Available Seats: " + flight.availableSeats() +
+                " | Price: " + Fares.format(flight.getFare(Fares.FareClass.STANDARD)) + fareOptions(flight));
+        }
+
+        System.out.print("Select flight to book (enter the number): ");
+        int flightChoice = scanner.nextInt();
+        scanner.nextLine(); 
+
+        Flight selectedFlight = matchingFlights.get(flightChoice - 1);
+
+        Fares.FareClass[] fareClasses = Fares.FareClass.values();
+        System.out.print("Select fare class (1. Saver, 2. Standard, 3. Flex): ");
+        int fareChoice = scanner.nextInt();
+        scanner.nextLine();
+        Fares.FareClass fareClass = fareChoice >= 1 && fareChoice <= fareClasses.length
+            ? fareClasses[fareChoice - 1] : Fares.FareClass.STANDARD;
+
+        System.out.print("Enter number of tickets: ");
+        int numTickets = scanner.nextInt();
+        scanner.nextLine(); 
+
+        // Quote before holding seats so the party pays the fare it was shown
+        long quotedFare = selectedFlight.getFare(fareClass);
+        if (quotedFare == Fares.UNAVAILABLE) {
+            System.out.println(fareClass + " fares are sold out on this flight.");
+            return;
+        }
+        // Hold the seats while passenger details are collected; infants hand theirs back
+        SeatHolds.Hold hold = holdSeats(username, selectedFlight, numTickets, quotedFare);
+        if (hold == null) {
+            System.out.println("Not enough seats available. Only " + selectedFlight.availableSeats() + " seats are available.");
+            System.out.print("Join the waitlist for this party? (yes/no): ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("yes")) {
+                List<Passenger> party = new ArrayList<>();
+                for (int i = 1; i <= numTickets; i++) {
+                    System.out.print("Enter name for passenger " + i + ": ");
+                    String name = scanner.nextLine();
+                    System.out.print("Enter age for passenger " + i + ": ");
+                    int age = scanner.nextInt();
+                    scanner.nextLine();
+                    party.add(new Passenger(name, age));
+                }
+                if (joinWaitlist(selectedFlight, username, Passenger.seatedLabels(party), Waitlist.Tier.STANDARD)) {
+                    System.out.println("Party added to the waitlist. Seats will be booked automatically when they free up.");
+                } else {
+                    System.out.println("The waitlist for this flight is full.");
+                }
+            }
+            return;
+        }
+
+        System.out.println(numTickets + " seats are held for you for " + (getHoldTtlMillis() + 59_999) / 60_000 +
+            " minutes while you enter passenger details.");
+        // The party is booked in one commit once every passenger is entered
+        List<Passenger> party = new ArrayList<>();
+        for (int i = 1; i <= numTickets; i++) {
+            System.out.print("Enter name for passenger " + i + ": ");
+            String name = scanner.nextLine();
+            System.out.print("Enter ID proof for passenger " + i + " (e.g., Passport/ID card number): ");
+            String idProof = scanner.nextLine();
+            System.out.print("Enter age for passenger " + i + ": ");
+            int age = scanner.nextInt();
+            scanner.nextLine(); 
+            if (age <= 2) {
+                System.out.println("Infant (0-2) — ticket not required.");
+            }
+            party.add(new Passenger(name, age));
+        }
+        PartyBooking booking = confirmParty(hold, party);
+        if (booking.status == PartyBooking.Status.HOLD_EXPIRED) {
+            System.out.println("Your seat hold expired before the booking was completed and the seats were released. Please book again.");
+            return;
+        }
+        if (booking.status == PartyBooking.Status.SAVE_FAILED) {
+            System.out.println("The booking could not be saved and the seats were released. Please try again.");
+            return;
+        }
+        for (BookingRecord record : booking.records) {
+            System.out.println(record.passengerName + " is seated in " + record.seatLabel() + ".");
+        }
+
+        System.out.println("Booking Summary:");
+        System.out.println("Adults booked: " + booking.adults);
+        System.out.println("Children booked: " + booking.children);
+        System.out.println("Infants (free): " + booking.infants);
+        System.out.println("Total booked: " + booking.records.size());
+        System.out.println("Total cost: " + Fares.format(booking.totalCost));
+    }
+
+    private static String fareOptions(Flight flight) {
+        long saver = flight.getFare(Fares.FareClass.SAVER);
+        return " (Saver: " + (saver == Fares.UNAVAILABLE ? "sold out" : Fares.format(saver)) +
+            ", Flex: " + Fares.format(flight.getFare(Fares.FareClass.FLEX)) + ")";
+    }
+
+    // Books a whole party on one flight: seats for every passenger who needs one are reserved
+    // together or not at all, and the bookings are persisted with a single journal commit. A party
+    // that does not fit joins the waitlist as one entry when waitlistTier is given.
+    public PartyBooking bookParty(String username, Flight flight, Fares.FareClass fareClass, int daysToDeparture,
+                                  List<Passenger> party, Waitlist.Tier waitlistTier) {
+        long start = Metrics.start();
+        try {
+            // Quote before holding seats so the party pays the fare it was shown
+            long fare = flight.getFare(fareClass, daysToDeparture);
+            if (fare == Fares.UNAVAILABLE) return PartyBooking.failed(PartyBooking.Status.FARE_UNAVAILABLE, flight);
+            int[] seats = new int[Passenger.seatsNeeded(party)];
+            if (!flight.reserveSeats(seats.length, seats)) {
+                if (waitlistTier == null) return PartyBooking.failed(PartyBooking.Status.SOLD_OUT, flight);
+                List<String> labels = Passenger.seatedLabels(party);
+                if (!joinWaitlist(flight, username, labels, waitlistTier)) {
+                    return PartyBooking.failed(PartyBooking.Status.WAITLIST_FULL, flight);
+                }
+                return new PartyBooking(PartyBooking.Status.WAITLISTED, flight, Collections.emptyList(), labels);
+            }
+            return confirmParty(username, flight, fare, seats, party);
+        } finally {
+            Metrics.record(Metrics.BOOK_PARTY, start);
+        }
+    }
+
+    // Confirms a party that already holds seats. Seats beyond those the party needs (held for
+    // infants, say) are handed back to the waitlist. If the bookings cannot be journaled every
+    // seat is released and the party is told so.
+    public PartyBooking confirmParty(String username, Flight flight, long adultFare, int[] seats, List<Passenger> party) {
+        PartyBooking booking = PartyBooking.seated(flight, adultFare, seats, party);
+        if (!confirmBookings(Collections.singletonMap(username, booking.records))) {
+            for (int i = booking.records.size(); i < seats.length; i++) {
+                flight.cancelSeat(seats[i]);
+            }
+            return PartyBooking.failed(PartyBooking.Status.SAVE_FAILED, flight);
+        }
+        if (seats.length > booking.records.size()) {
+            for (int i = booking.records.size(); i < seats.length; i++) {
+                flight.cancelSeat(seats[i]);
+            }
+            promoteWaitlist(flight);
+        }
+        return booking;
+    }
+
+    // Reserves n seats for the party and holds them for the hold TTL at the quoted adult fare,
+    // or returns null if the flight does not have n free seats
+    public SeatHolds.Hold holdSeats(String username, Flight flight, int n, long quotedFare) {
+        int[] seats = new int[Math.max(n, 0)];
+        if (!flight.reserveSeats(n, seats)) return null;
+        return holds.hold(username, flight, seats, quotedFare);
+    }
+
+    // Books the party into held seats, unless the hold lapsed first
+    public PartyBooking confirmParty(SeatHolds.Hold hold, List<Passenger> party) {
+        long start = Metrics.start();
+        try {
+            if (!holds.confirm(hold)) return PartyBooking.failed(PartyBooking.Status.HOLD_EXPIRED, hold.flight);
+            return confirmParty(hold.username, hold.flight, hold.quotedFare, hold.seats, party);
+        } finally {
+            Metrics.record(Metrics.BOOK_PARTY, start);
+        }
+    }
+
+    // Gives held seats back before the hold lapses
+    public void releaseHold(SeatHolds.Hold hold) {
+        if (!holds.release(hold)) return;
+        for (int seat : hold.seats) {
+            hold.flight.cancelSeat(seat);
+        }
+        promoteWaitlist(hold.flight);
+    }
+
+    long getHoldTtlMillis() {
+        return holds.ttlMillis();
+    }
+
+    // Called by the hold ticker with every hold that lapsed on one tick
+    private void holdsExpired(List<SeatHolds.Hold> lapsed) {
+        Set<Flight> flights = new LinkedHashSet<>();
+        for (SeatHolds.Hold hold : lapsed) {
+            for (int seat : hold.seats) {
+                hold.flight.cancelSeat(seat);
+            }
+            flights.add(hold.flight);
+        }
+        Metrics.count(Metrics.HOLDS_EXPIRED, lapsed.size());
+        for (Flight flight : flights) {
+            promoteWaitlist(flight);
+        }
+    }
+
+    // Record new bookings: one group commit to the journal, then append them to the user's file
+    public boolean saveUserBookings(String username, List<BookingRecord> newRecords) {
+        return saveBookings(Collections.singletonMap(username, newRecords));
+    }
+
+    // Persist new bookings for several users with a single journal commit and one store write per
+    // partition. Returns false, having written nothing, if the journal commit fails; the store is
+    // only a cache of the journal, so a failed store write is reported and repaired on recovery.
+    public boolean saveBookings(Map<String, List<BookingRecord>> newRecordsByUser) {
+        long start = Metrics.start();
+        List<BookingJournal.Entry> entries = new ArrayList<>();
+        for (Map.Entry<String, List<BookingRecord>> user : newRecordsByUser.entrySet()) {
+            for (BookingRecord record : user.getValue()) {
+                entries.add(BookingJournal.Entry.booking(user.getKey(), record.flight.flightNumber(), record.passengerName,
+                    record.seat, record.farePaise));
+            }
+        }
+        if (entries.isEmpty()) return true;
+        for (BookingJournal.Entry entry : entries) {
+            // Refused up front: a journaled booking the store cannot hold would fail every recovery
+            if (!BookingStore.fits(entry)) {
+                System.out.println("Error saving user bookings: a name is longer than 65535 bytes");
+                return false;
+            }
+        }
+        storeBarrier.readLock().lock();
+        try {
+            long seq;
+            try {
+                seq = journal.commit(entries);
+            } catch (IOException e) {
+                System.out.println("Error writing booking journal: " + e.getMessage());
+                return false;
+            }
+            // Store records carry their journal sequence numbers, so recovery can tell which the journal backs
+            Map<String, List<BookingJournal.Entry>> entriesByUser = new HashMap<>();
+            for (BookingJournal.Entry entry : entries) {
+                entriesByUser.computeIfAbsent(entry.username, k -> new ArrayList<>()).add(entry.withSeq(seq++));
+            }
+            try {
+                store.append(entriesByUser);
+            } catch (IOException e) {
+                System.out.println("Error saving user bookings: " + e.getMessage());
+            }
+        } finally {
+            storeBarrier.readLock().unlock();
+        }
+        for (BookingJournal.Entry entry : entries) {
+            audit.record(AuditLog.Type.BOOK, entry.username, entry.flightNumber, entry.seat, 0);
+        }
+        maybeSnapshot(entries.size());
+        // Every booking the app makes is persisted here, so this is the one place seats are counted
+        Metrics.count(Metrics.SEATS_BOOKED, entries.size());
+        Metrics.record(Metrics.SAVE_BOOKINGS, start);
+        return true;
+    }
+
+    public boolean joinWaitlist(Flight flight, String username, List<String> passengerNames, Waitlist.Tier tier) {
+        if (!flight.waitlist().offer(new Waitlist.Entry(username, passengerNames, tier, System.currentTimeMillis()))) return false;
+        audit.record(AuditLog.Type.WAITLIST, username, flight.flightNumber(), -1, passengerNames.size());
+        Metrics.count(Metrics.WAITLIST_JOINS, 1);
+        return true;
+    }
+
+    // Turns every waiting party the free seats can hold into real bookings, persisted with one
+    // journal commit, and returns how many passengers were booked. If the commit fails the seats
+    // are released, the parties go back in their places in line, and -1 is returned.
+    public int promoteWaitlist(Flight flight) {
+        List<Waitlist.Promotion> promotions = flight.promoteWaitlisted();
+        if (promotions.isEmpty()) return 0;
+        Map<String, List<BookingRecord>> promoted = new LinkedHashMap<>();
+        List<Waitlist.Entry> parties = new ArrayList<>(promotions.size());
+        int passengers = 0;
+        // Waiting parties are charged the Standard fare when their seats come free
+        long fare = Math.max(flight.getFare(Fares.FareClass.STANDARD), 0);
+        for (Waitlist.Promotion promotion : promotions) {
+            Waitlist.Entry entry = promotion.entry;
+            List<BookingRecord> records = promoted.computeIfAbsent(entry.username, k -> new ArrayList<>());
+            for (int i = 0; i < entry.partySize(); i++) {
+                records.add(new BookingRecord(flight, entry.passengerNames.get(i), promotion.seats[i], fare));
+            }
+            parties.add(entry);
+            passengers += entry.partySize();
+        }
+        if (!confirmBookings(promoted)) {
+            flight.waitlist().requeue(parties);
+            return -1;
+        }
+        for (Waitlist.Entry entry : parties) {
+            audit.record(AuditLog.Type.PROMOTE, entry.username, flight.flightNumber(), -1, entry.partySize());
+        }
+        Metrics.count(Metrics.PROMOTIONS, passengers);
+        return passengers;
+    }
+
+    // Persist already reserved bookings together, then add them to each user's list. Publishing
+    // only after the write keeps a concurrent cancellation from being journaled ahead of its booking.
+    // When the journal commit fails the reserved seats are released and nothing is published.
+    public boolean confirmBookings(Map<String, List<BookingRecord>> newRecordsByUser) {
+        // A user not in memory, such as the owner of a promoted party, is read from the store
+        // before the write, so their list keeps their older bookings and not only these
+        for (String username : newRecordsByUser.keySet()) {
+            ensureUserLoaded(username);
+        }
+        if (!saveBookings(newRecordsByUser)) {
+            for (List<BookingRecord> records : newRecordsByUser.values()) {
+                for (BookingRecord record : records) {
+                    record.flight.cancelSeat(record.seat);
+                }
+            }
+            return false;
+        }
+        for (Map.Entry<String, List<BookingRecord>> user : newRecordsByUser.entrySet()) {
+            addBookings(user.getKey(), user.getValue());
+        }
+        return true;
+    }
+
+    private void addBookings(String username, List<BookingRecord> records) {
+        List<BookingRecord> list = userBookings.computeIfAbsent(username, k -> new ArrayList<>());
+        synchronized (list) {
+            list.addAll(records);
+        }
+    }
+
+    // A copy of the user's bookings, safe to read while other sessions book and cancel
+    public List<BookingRecord> getBookings(String username) {
+        List<BookingRecord> records = userBookings.get(username);
+        if (records == null) return Collections.emptyList();
+        synchronized (records) {
+            return new ArrayList<>(records);
+        }
+    }
+
+    // Revenue, cancellations, load factors and top users over the whole journal (admin)
+    public void viewAnalytics() {
+        try {
+            System.out.println("\n--- Booking Analytics ---");
+            System.out.print(new BookingAnalytics(table).analyze(journal.getPath()).format(10));
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Error reading booking journal: " + e.getMessage());
+        }
+    }
+
+    // View all bookings (admin), rebuilt from the journal with cancellations applied
+    public void viewAllBookings() {
+        Map<String, List<BookingJournal.Entry>> live = new LinkedHashMap<>();
+        try {
+            BookingJournal.replay(journal.getPath(), entry -> {
+                String key = entry.username + "\t" + entry.flightNumber + "\t" + entry.passengerName;
+                if (entry.type == BookingJournal.BOOK) {
+                    live.computeIfAbsent(key, k -> new ArrayList<>()).add(entry);
+                } else {
+                    List<BookingJournal.Entry> booked = live.get(key);
+                    if (booked != null) {
+                        booked.remove(booked.size() - 1);
+                        if (booked.isEmpty()) live.remove(key);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            System.out.println("No bookings have been made yet or unable to read file.");
+            return;
+        }
+
+        System.out.println("\n--- All Bookings ---");
+        for (List<BookingJournal.Entry> entries : live.values()) {
+            for (BookingJournal.Entry entry : entries) {
+                Flight flight = flightsByNumber.get(entry.flightNumber);
+                String line = "User: " + entry.username + " | Passenger: " + entry.passengerName +
+                    " | Flight: " + entry.flightNumber;
+                if (flight != null) {
+                    line += " | Route: " + flight.source() + " -> " + flight.destination() +
+                        " | Departure: " + flight.departureTime();
+                }
+                System.out.println(line);
+            }
+        }
+    }
+
+    // Seed a new journal from the old bookings.txt, which repeated every booking on each save
+    private void importLegacyBookings(Path legacyFile) throws IOException {
+        if (!Files.exists(legacyFile)) return;
+        Set<String> seen = new HashSet<>();
+        List<BookingJournal.Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(legacyFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("User: ") || !seen.add(line)) continue;
+                Map<String, String> fields = new HashMap<>();
+                for (String part : line.split(" \\| ")) {
+                    int colon = part.indexOf(": ");
+                    if (colon > 0) fields.put(part.substring(0, colon), part.substring(colon + 2));
+                }
+                if (fields.containsKey("User") && fields.containsKey("Passenger") && fields.containsKey("Flight")) {
+                    entries.add(BookingJournal.Entry.booking(fields.get("User"), fields.get("Flight"), fields.get("Passenger")));
+                }
+            }
+        }
+        store.reconcile(sequenced(entries, journal.commit(entries)));
+    }
+
+    // The entries as committed, numbered from firstSeq, for the store to keep
+    private static List<BookingJournal.Entry> sequenced(List<BookingJournal.Entry> entries, long firstSeq) {
+        List<BookingJournal.Entry> committed = new ArrayList<>(entries.size());
+        for (BookingJournal.Entry entry : entries) {
+            committed.add(entry.withSeq(firstSeq++));
+        }
+        return committed;
+    }
+
+    // Leaves a fresh snapshot behind so the next start has no journal tail to replay
+    public void close() {
+        holds.close();
+        try {
+            writeSnapshot();
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Error closing booking system: " + e.getMessage());
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.out.println("Error closing booking store: " + e.getMessage());
+        }
+        audit.close();
+        metrics.unregister();
+    }
+
+    public void viewMetrics() {
+        System.out.print(metrics.dump());
+    }
+
+    // Load bookings for a user from the store, resolving flights through the catalog index. A user
+    // already in memory keeps their list, which gains only the stored bookings it does not hold.
+    public void loadUserBookings(String username) {
+        List<BookingRecord> stored = readUserBookings(username);
+        List<BookingRecord> records = userBookings.putIfAbsent(username, stored);
+        if (records == null) return;
+        synchronized (records) {
+            for (BookingRecord record : stored) {
+                if (!holds(records, record)) records.add(record);
+            }
+        }
+    }
+
+    private static boolean holds(List<BookingRecord> records, BookingRecord record) {
+        for (BookingRecord held : records) {
+            if (held.flight == record.flight && held.seat == record.seat && held.passengerName.equals(record.passengerName)) return true;
+        }
+        return false;
+    }
+
+    // Loads the user's bookings unless they are already in memory; a user logging in from several
+    // sessions at once is read from the store only once
+    public void ensureUserLoaded(String username) {
+        userBookings.computeIfAbsent(username, this::readUserBookings);
+    }
+
+    private List<BookingRecord> readUserBookings(String username) {
+        long start = Metrics.start();
+        List<BookingRecord> records = new ArrayList<>();
+        try {
+            for (BookingJournal.Entry entry : store.load(username)) {
+                Flight flight = flightsByNumber.get(entry.flightNumber);
+                if (flight != null) records.add(new BookingRecord(flight, entry.passengerName, entry.seat, entry.farePaise));
+            }
+            if (records.isEmpty()) records = importUserFile(username);
+        } catch (IOException e) {
+            System.out.println("Error loading user bookings: " + e.getMessage());
+        }
+        Metrics.record(Metrics.LOAD_BOOKINGS, start);
+        return records;
+    }
+
+    // Moves a user's old <username>_bookings.txt into the store; the file is renamed so it is imported once
+    private List<BookingRecord> importUserFile(String username) throws IOException {
+        Path legacy = dataDir.resolve(username + "_bookings.txt");
+        List<BookingRecord> records = new ArrayList<>();
+        if (!Files.exists(legacy)) return records;
+        try (BufferedReader reader = Files.newBufferedReader(legacy)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Lines are "passenger,flight" or "passenger,flight,seat"; passenger labels contain commas
+                int comma = line.lastIndexOf(',');
+                if (comma <= 0) continue;
+                String last = line.substring(comma + 1).trim();
+                Flight flight = flightsByNumber.get(last);
+                if (flight != null) {
+                    records.add(new BookingRecord(flight, line.substring(0, comma).trim()));
+                    continue;
+                }
+                int flightComma = line.lastIndexOf(',', comma - 1);
+                if (flightComma <= 0) continue;
+                flight = flightsByNumber.get(line.substring(flightComma + 1, comma).trim());
+                if (flight != null) {
+                    records.add(new BookingRecord(flight, line.substring(0, flightComma).trim(), flight.seatMap().parseLabel(last)));
+                }
+            }
+        }
+        List<BookingJournal.Entry> entries = new ArrayList<>(records.size());
+        for (BookingRecord record : records) {
+            entries.add(BookingJournal.Entry.booking(username, record.flight.flightNumber(), record.passengerName, record.seat));
+        }
+        // Journaled like any booking, since recovery drops store records the journal does not have
+        storeBarrier.readLock().lock();
+        try {
+            store.append(Collections.singletonMap(username, sequenced(entries, journal.commit(entries))));
+        } finally {
+            storeBarrier.readLock().unlock();
+        }
+        Files.move(legacy, legacy.resolveSibling(legacy.getFileName() + ".imported"), StandardCopyOption.REPLACE_EXISTING);
+        return records;
+    }
+
+    public void viewMyBookings(String username) {
+        List<BookingRecord> records = getBookings(username);
+        if (records.isEmpty()) {
+            System.out.println("No bookings found.");
+            return;
+        }
+
+        System.out.println("Your Bookings:");
+        for (BookingRecord record : records) {
+            System.out.println("Passenger: " + record.passengerName +
+                " | Flight: " + record.flight.flightNumber() +
+                " | Seat: " + record.seatLabel() +
+                " | Route: " + record.flight.source() + " -> " + record.flight.destination() +
+                " | Departure: " + record.flight.departureTime());
+        }
+    }
+
+    public void cancelSpecificBooking(String username) {
+        List<BookingRecord> records = getBookings(username);
+        if (records.isEmpty()) {
+            System.out.println("No bookings to cancel.");
+            return;
+        }
+
+        System.out.println("Select a booking to cancel:");
+        for (int i = 0; i < records.size(); i++) {
+            BookingRecord record = records.get(i);
+            System.out.println((i + 1) + ". Passenger: " + record.passengerName +
+                " | Flight: " + record.flight.flightNumber() +
+                " | Seat: " + record.seatLabel() +
+                " | Route: " + record.flight.source() + " -> " + record.flight.destination() +
+                " | Departure: " + record.flight.departureTime());
+        }
+
+        Scanner scanner = new Scanner(System.in);
+        System.out.print("Enter the number of the booking to cancel: ");
+        int choice = scanner.nextInt();
+        scanner.nextLine();
+
+        if (choice < 1 || choice > records.size()) {
+            System.out.println("Invalid choice.");
+            return;
+        }
+
+        BookingRecord record = records.get(choice - 1);
+        if (!removeBooking(username, record)) {
+            System.out.println("That booking has already been cancelled.");
+            return;
+        }
+        if (!cancelRecord(username, record)) {
+            System.out.println("The booking could not be cancelled. Please try again.");
+            return;
+        }
+        System.out.println("Booking canceled for: " + record.passengerName);
+        promoteWaitlist(record.flight);
+    }
+
+    // Cancel one booking by flight and passenger label; returns null when the user has no such
+    // booking or the cancellation could not be journaled
+    public BookingRecord cancelBooking(String username, String flightNumber, String passengerName) {
+        return cancelBooking(username, flightNumber, passengerName, true);
+    }
+
+    // With promote false the caller runs promoteWaitlist itself, so a wave of cancellations is promoted in one pass
+    BookingRecord cancelBooking(String username, String flightNumber, String passengerName, boolean promote) {
+        List<BookingRecord> records = userBookings.get(username);
+        if (records == null) return null;
+        BookingRecord cancelled = null;
+        synchronized (records) {
+            for (Iterator<BookingRecord> it = records.iterator(); it.hasNext(); ) {
+                BookingRecord record = it.next();
+                if (record.flight.flightNumber().equals(flightNumber) && record.passengerName.equals(passengerName)) {
+                    it.remove();
+                    cancelled = record;
+                    break;
+                }
+            }
+        }
+        if (cancelled == null || !cancelRecord(username, cancelled)) return null;
+        if (promote) promoteWaitlist(cancelled.flight);
+        return cancelled;
+    }
+
+    // Removes this exact record; false if another session cancelled it first
+    private boolean removeBooking(String username, BookingRecord record) {
+        List<BookingRecord> records = userBookings.get(username);
+        if (records == null) return false;
+        synchronized (records) {
+            for (Iterator<BookingRecord> it = records.iterator(); it.hasNext(); ) {
+                if (it.next() == record) {
+                    it.remove();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Journals the cancellation of a record already taken off the user's list, then frees its seat.
+    // The seat stays taken until the cancellation is committed, so no booking of the same seat can
+    // reach the journal ahead of it; if the commit fails the record goes back on the list.
+    private boolean cancelRecord(String username, BookingRecord record) {
+        long start = Metrics.start();
+        BookingJournal.Entry cancellation = BookingJournal.Entry.cancellation(username, record.flight.flightNumber(), record.passengerName,
+            record.seat, record.farePaise);
+        storeBarrier.readLock().lock();
+        try {
+            long seq;
+            try {
+                seq = journal.commit(cancellation);
+            } catch (IOException e) {
+                System.out.println("Error writing booking journal: " + e.getMessage());
+                addBookings(username, Collections.singletonList(record));
+                return false;
+            }
+            try {
+                store.remove(cancellation.withSeq(seq));
+            } catch (IOException e) {
+                System.out.println("Error saving user bookings: " + e.getMessage());
+            }
+        } finally {
+            storeBarrier.readLock().unlock();
+        }
+        record.flight.cancelSeat(record.seat);
+        audit.record(AuditLog.Type.CANCEL, username, record.flight.flightNumber(), record.seat, 0);
+        maybeSnapshot(1);
+        Metrics.count(Metrics.SEATS_CANCELLED, 1);
+        Metrics.record(Metrics.CANCEL, start);
+        return true;
+    }
+}
+
+public class Main {
+    public static void main(String[] args) {
+        // Many concurrent sessions over loopback TCP instead of one console user
+        if (args.length > 0 && args[0].equals("--server")) {
+            try {
+                BookingServer.main(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException e) {
+                System.out.println("Error starting booking server: " + e.getMessage());
+            }
+            return;
+        }
+
+        Scanner scanner = new Scanner(System.in);
+        BookingSystem system = new BookingSystem();
+
+        // Registration prompt before reading users file
+        System.out.print("Do you have an account? (yes/no): ");
+        String hasAccount = scanner.nextLine().trim().toLowerCase();
+
+        // Accounts live in the hashed index; users.txt is only read to build it on first run
+        CredentialStore credentials;
+        try {
+            credentials = new CredentialStore(Paths.get("users.idx"), Paths.get("users.txt"));
+        } catch (IOException e) {
+            System.out.println("Error reading users file: " + e.getMessage());
+            return;
+        }
+
+        if (hasAccount.equals("no")) {
+            System.out.print("Enter new username: ");
+            String newUsername = scanner.nextLine().trim();
+            System.out.print("Enter new password: ");
+            String newPassword = scanner.nextLine().trim();
+            try {
+                switch (credentials.register(newUsername, newPassword)) {
+                    case CREATED:
+                        system.audit.record(AuditLog.Type.REGISTER, newUsername);
+                        System.out.println("Account created successfully. You can now log in.");
+                        break;
+                    case DUPLICATE:
+                        System.out.println("Username already exists. Please log in instead.");
+                        break;
+                    default:
+                        System.out.println("Username and password must not be empty, and the username must be at most " +
+                            CredentialStore.MAX_NAME_BYTES + " bytes.");
+                }
+            } catch (IOException e) {
+                System.out.println("Error creating account: " + e.getMessage());
+                return;
+            }
+        }
+
+        System.out.println("Welcome to the Flight Booking System");
+        System.out.print("Enter username: ");
+        String username = scanner.nextLine().trim();
+        System.out.print("Enter password: ");
+        String password = scanner.nextLine().trim();
+
+        if (!credentials.verify(username, password)) {
+            system.audit.record(AuditLog.Type.LOGIN_FAILED, username);
+            System.out.println("Invalid credentials. Exiting system.");
+            closeQuietly(credentials);
+            return;
+        }
+
+        System.out.println("Login successful. Welcome, " + username + "!");
+        system.audit.record(AuditLog.Type.LOGIN, username);
+
+        // The hard-coded catalog seeds the first run; afterwards it comes from the snapshot
+        if (!system.hasFlights()) {
+            addDefaultFlights(system);
+        }
+        system.recover();
+        system.loadUserBookings(username);
+
+        while (true) {
+            System.out.println("\n--- Flight Booking System ---");
+            System.out.println("1. View Domestic Flights");
+            System.out.println("2. View International Flights");
+            System.out.println("3. View My Booking");
+            System.out.println("4. Cancel Last Booking");
+            System.out.println("5. Exit");
+            if (username.equals("admin")) {
+                System.out.println("6. View All Bookings (Admin)");
+                System.out.println("8. View Metrics (Admin)");
+                System.out.println("9. Booking Analytics (Admin)");
+            }
+            System.out.println("7. Search Connecting Flights");
+            System.out.print("Enter your choice: ");
+            int choice = scanner.nextInt();
+            scanner.nextLine();
+
+            // Admin hidden option
+            if (username.equals("admin") && choice == 6) {
+                system.viewAllBookings();
+                continue;
+            }
+            if (username.equals("admin") && choice == 8) {
+                system.viewMetrics();
+                continue;
+            }
+            if (username.equals("admin") && choice == 9) {
+                system.viewAnalytics();
+                continue;
+            }
+
+            switch (choice) {
+                case 1:
+                    System.out.println("\n--- Domestic Flights ---");
+                    system.displayFlightsByType(false, username); 
+                    break;
+                case 2:
+                    System.out.println("\n--- International Flights ---");
+                    system.displayFlightsByType(true, username); 
+                    break;
+                case 3:
+                    system.viewMyBookings(username);
+                    break;
+                case 4:
+                    system.cancelSpecificBooking(username);
+                    break;
+                case 5:
+                    System.out.println("Thank you for using the system!");
+                    system.close();
+                    closeQuietly(credentials);
+                    return;
+                case 7:
+                    system.searchConnectingFlights();
+                    break;
+                default:
+                    System.out.println("Invalid choice.");
+            }
+        }
+    }
+
+    private static void closeQuietly(CredentialStore credentials) {
+        try {
+            credentials.close();
+        } catch (IOException e) {
+            System.out.println("Error closing users file: " + e.getMessage());
+        }
+    }
+
+    static void addDefaultFlights(BookingSystem system) {
+        system.addFlight("AI101", "Delhi", "Mumbai", 5, 5000, "08:00 AM");
+        system.addFlight("AI102", "Bangalore", "Chennai", 4, 4000, "09:30 AM");
+        system.addFlight("AI103", "Kolkata", "Delhi", 3, 4800, "10:45 AM");
+        system.addFlight("AI104", "Hyderabad", "Ahmedabad", 5, 4200, "01:00 PM");
+        system.addFlight("AI229", "Delhi", "Ahmedabad", 4, 4300, "08:40 AM");
+        system.addFlight("AI105", "Jaipur", "Goa", 6, 4500, "02:15 PM");
+        system.addFlight("AI201", "Delhi", "Dubai", 5, 15000, "06:00 AM");
+        system.addFlight("AI202", "Mumbai", "Singapore", 4, 18000, "11:30 AM");
+        system.addFlight("AI203", "Chennai", "London", 3, 32000, "07:00 PM");
+        system.addFlight("AI204", "Kolkata", "Bangkok", 6, 17000, "04:00 PM");
+        system.addFlight("AI205", "Hyderabad", "New York", 2, 45000, "10:00 PM");
+        system.addFlight("AI206", "Bangalore", "Paris", 3, 35000, "03:30 PM");
+        system.addFlight("AI207", "Delhi", "Tokyo", 3, 37000, "12:00 PM");
+        system.addFlight("AI208", "Mumbai", "Toronto", 2, 39000, "08:00 PM");
+
+        system.addFlight("AI106", "Chennai", "Mumbai", 6, 4900, "05:25 AM");
+        system.addFlight("AI107", "Goa", "Mumbai", 4, 4700, "06:50 PM");
+        system.addFlight("AI108", "Hyderabad", "Mumbai", 5, 5000, "09:10 AM");
+
+        system.addFlight("AI109", "Delhi", "Chennai", 6, 4600, "07:30 AM");
+        system.addFlight("AI110", "Mumbai", "Chennai", 4, 4700, "02:40 PM");
+        system.addFlight("AI111", "Kolkata", "Chennai", 5, 4800, "11:15 AM");
+
+        system.addFlight("AI112", "Ahmedabad", "Delhi", 6, 4400, "06:35 AM");
+        system.addFlight("AI113", "Bangalore", "Delhi", 4, 4900, "04:45 PM");
+        system.addFlight("AI114", "Goa", "Delhi", 5, 5100, "08:25 PM");
+
+        system.addFlight("AI209", "Bangalore", "Dubai", 4, 16000, "05:55 AM");
+        system.addFlight("AI210", "Hyderabad", "Dubai", 3, 16500, "09:20 PM");
+
+        system.addFlight("AI211", "Delhi", "Singapore", 4, 17000, "01:50 PM");
+        system.addFlight("AI212", "Kolkata", "Singapore", 3, 17200, "07:10 AM");
+
+        system.addFlight("AI213", "Mumbai", "London", 3, 33000, "10:30 AM");
+        system.addFlight("AI214", "Hyderabad", "London", 2, 32500, "03:00 PM");
+
+        system.addFlight("AI215", "Delhi", "New York", 2, 45500, "11:45 PM");
+        system.addFlight("AI216", "Kolkata", "New York", 3, 46000, "07:35 AM");
+
+        system.addFlight("AI217", "Delhi", "Goa", 4, 4600, "06:10 AM");
+        system.addFlight("AI218", "Chandigarh", "Goa", 3, 4800, "12:30 PM");
+        system.addFlight("AI219", "Jaipur", "Goa", 5, 4700, "07:45 PM");
+
+        system.addFlight("AI230", "Mumbai", "Chandigarh", 3, 4500, "06:45 AM");
+
+        system.addFlight("AI220", "Chandigarh", "Singapore", 3, 17500, "09:30 AM");
+        system.addFlight("AI221", "Jaipur", "Singapore", 2, 17800, "06:45 PM");
+        system.addFlight("AI222", "Delhi", "Singapore", 2, 17200, "11:15 PM");
+
+        system.addFlight("AI223", "Bangalore", "Goa", 4, 4700, "01:20 PM");
+        system.addFlight("AI224", "Hyderabad", "Goa", 3, 4600, "03:40 PM");
+        system.addFlight("AI225", "Kolkata", "Goa", 5, 4800, "05:15 PM");
+
+        system.addFlight("AI226", "Bangalore", "Singapore", 3, 17400, "07:00 AM");
+        system.addFlight("AI227", "Ahmedabad", "Singapore", 2, 17900, "06:10 AM");
+        system.addFlight("AI228", "Chennai", "Singapore", 3, 17100, "10:50 PM");
+    }
+}
@@ -0,0 +1,77 @@
+package flightbooking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide operation latencies and counters. Call sites take start() before the work and
+// record the histogram after it; both are allocation-free and become no-ops with -Dbooking.metrics=false.
+final class Metrics {
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("booking.metrics"));
+
+    static final LatencyHistogram SEARCH = new LatencyHistogram("search");
+    // A party booking from quote to persisted records, whatever the outcome
+    static final LatencyHistogram BOOK_PARTY = new LatencyHistogram("bookParty");
+    static final LatencyHistogram CANCEL = new LatencyHistogram("cancel");
+    static final LatencyHistogram SAVE_BOOKINGS = new LatencyHistogram("saveBookings");
+    static final LatencyHistogram LOAD_BOOKINGS = new LatencyHistogram("loadUserBookings");
+    static final LatencyHistogram[] HISTOGRAMS = {SEARCH, BOOK_PARTY, CANCEL, SAVE_BOOKINGS, LOAD_BOOKINGS};
+
+    static final LongAdder SEATS_BOOKED = new LongAdder();
+    static final LongAdder SEATS_CANCELLED = new LongAdder();
+    static final LongAdder WAITLIST_JOINS = new LongAdder();
+    static final LongAdder PROMOTIONS = new LongAdder();
+    static final LongAdder HOLDS_EXPIRED = new LongAdder();
+
+    // The busiest flights shown in the text dump
+    private static final int DUMP_FLIGHTS = 20;
+
+    private Metrics() {
+    }
+
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    static void record(LatencyHistogram histogram, long start) {
+        if (ENABLED) histogram.record(System.nanoTime() - start);
+    }
+
+    static void count(LongAdder counter, int n) {
+        if (ENABLED) counter.add(n);
+    }
+
+    static double loadFactor(Flight flight) {
+        int totalSeats = flight.totalSeats();
+        return totalSeats == 0 ? 0 : (double) (totalSeats - flight.availableSeats()) / totalSeats;
+    }
+
+    static String dump(Collection<Flight> flights) {
+        StringBuilder sb = new StringBuilder();
+        if (!ENABLED) sb.append("Metrics are disabled (booking.metrics=false).\n");
+        sb.append(String.format("%-18s %10s %10s %10s %10s %10s%n", "Operation", "Count", "p50 (us)", "p99 (us)", "p999 (us)", "Max (us)"));
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            sb.append(String.format("%-18s %10d %10.1f %10.1f %10.1f %10.1f%n", histogram.name, histogram.count(),
+                histogram.percentile(0.50) / 1000.0, histogram.percentile(0.99) / 1000.0,
+                histogram.percentile(0.999) / 1000.0, histogram.max() / 1000.0));
+        }
+        sb.append("Seats booked: ").append(SEATS_BOOKED.sum())
+            .append(" | Seats cancelled: ").append(SEATS_CANCELLED.sum())
+            .append(" | Waitlist joins: ").append(WAITLIST_JOINS.sum())
+            .append(" | Waitlist promotions: ").append(PROMOTIONS.sum())
+            .append(" | Seat holds expired: ").append(HOLDS_EXPIRED.sum()).append('\n');
+
+        List<Flight> busiest = new ArrayList<>(flights);
+        busiest.sort(Comparator.comparingDouble(Metrics::loadFactor).reversed()
+            .thenComparing(Comparator.comparingInt(Flight::getWaitlistSize).reversed()));
+        if (busiest.size() > DUMP_FLIGHTS) busiest = busiest.subList(0, DUMP_FLIGHTS);
+        sb.append(String.format("Busiest flights (%d of %d):%n", busiest.size(), flights.size()));
+        for (Flight flight : busiest) {
+            sb.append(String.format("%-8s %-10s -> %-10s Load: %5.1f%% | Waitlist: %d%n", flight.flightNumber(),
+                flight.source(), flight.destination(), 100 * loadFactor(flight), flight.getWaitlistSize()));
+        }
+        return sb.toString();
+    }
+}
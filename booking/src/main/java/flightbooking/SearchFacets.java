@@ -0,0 +1,126 @@
+package flightbooking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Facets behind the search menus: destinations by market, sources per destination, and how many
+// flights on each route still have seats. They are updated a flight at a time as the catalog grows
+// and as flights sell out or reopen, so a menu never scans the catalog. Readers get an immutable
+// Snapshot that is rebuilt from the facets only after the catalog has changed; seat counts per
+// route are read live.
+class SearchFacets {
+    private static final class Route {
+        final AtomicInteger flights = new AtomicInteger();
+        final AtomicInteger openFlights = new AtomicInteger();
+    }
+
+    // Menus as of one catalog version; the lists are unmodifiable
+    static final class Snapshot {
+        final long version;
+        private final List<List<String>> destinationsByMarket;
+        private final Map<String, List<String>> sourcesByDestination;
+
+        private Snapshot(long version, List<List<String>> destinationsByMarket, Map<String, List<String>> sourcesByDestination) {
+            this.version = version;
+            this.destinationsByMarket = destinationsByMarket;
+            this.sourcesByDestination = sourcesByDestination;
+        }
+
+        // Destination cities in the market, in the order they first appeared in the catalog
+        List<String> destinations(byte market) {
+            return destinationsByMarket.get(market);
+        }
+
+        List<String> sources(String destination) {
+            return sourcesByDestination.getOrDefault(destination, Collections.emptyList());
+        }
+    }
+
+    private static final int MARKETS = 3;
+
+    private final FlightTable table;
+    private final Map<Long, Route> routes = new ConcurrentHashMap<>();
+    // Guarded by this
+    private final List<List<String>> destinationsByMarket = new ArrayList<>(MARKETS);
+    private final Map<String, List<String>> sourcesByDestination = new LinkedHashMap<>();
+    private volatile long version;
+    private volatile Snapshot snapshot;
+
+    SearchFacets(FlightTable table) {
+        this.table = table;
+        for (int i = 0; i < MARKETS; i++) {
+            destinationsByMarket.add(new ArrayList<>());
+        }
+        table.setAvailabilityListener(this::availabilityChanged);
+    }
+
+    static long routeKey(int sourceId, int destinationId) {
+        return (long) sourceId << 32 | destinationId;
+    }
+
+    synchronized void flightAdded(Flight flight) {
+        Route route = routes.computeIfAbsent(routeKey(flight.sourceId(), flight.destinationId()), k -> new Route());
+        route.flights.incrementAndGet();
+        if (flight.availableSeats() > 0) route.openFlights.incrementAndGet();
+        List<String> sources = sourcesByDestination.get(flight.destination());
+        if (sources == null) {
+            sources = new ArrayList<>();
+            sourcesByDestination.put(flight.destination(), sources);
+            destinationsByMarket.get(table.market(flight.destinationId())).add(flight.destination());
+        }
+        if (route.flights.get() == 1) {
+            sources.add(flight.source());
+            version++;
+        }
+    }
+
+    // Called by a flight whose free seats went to zero or back above it
+    private void availabilityChanged(Flight flight, boolean open) {
+        Route route = routes.get(routeKey(flight.sourceId(), flight.destinationId()));
+        // A flight is counted from the moment it is added
+        if (route != null) route.openFlights.addAndGet(open ? 1 : -1);
+    }
+
+    int flights(String source, String destination) {
+        Route route = route(source, destination);
+        return route != null ? route.flights.get() : 0;
+    }
+
+    // Flights on the route with at least one free seat
+    int openFlights(String source, String destination) {
+        Route route = route(source, destination);
+        return route != null ? route.openFlights.get() : 0;
+    }
+
+    private Route route(String source, String destination) {
+        int sourceId = table.findCity(source);
+        int destinationId = table.findCity(destination);
+        return sourceId < 0 || destinationId < 0 ? null : routes.get(routeKey(sourceId, destinationId));
+    }
+
+    // The menus for the current catalog, copied out of the facets at most once per catalog change
+    Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null && current.version == version) return current;
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && current.version == version) return current;
+            List<List<String>> destinations = new ArrayList<>(MARKETS);
+            for (List<String> market : destinationsByMarket) {
+                destinations.add(Collections.unmodifiableList(new ArrayList<>(market)));
+            }
+            Map<String, List<String>> sources = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> entry : sourcesByDestination.entrySet()) {
+                sources.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+            }
+            current = new Snapshot(version, Collections.unmodifiableList(destinations), Collections.unmodifiableMap(sources));
+            snapshot = current;
+            return current;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package flightbooking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Seats reserved for a party while its passenger details are collected. A hold that is neither
+// confirmed nor released within the TTL lapses and its seats are handed to the expiry callback.
+// Deadlines sit on a TimingWheel owned by one ticker thread: sessions queue new holds for it and
+// settle a hold by a CAS on its state, leaving the wheel entry to be dropped when its tick comes.
+// Nothing is scheduled per hold, so outstanding holds cost one small object each.
+class SeatHolds implements AutoCloseable {
+    private static final int ACTIVE = 0;
+    private static final int CONFIRMED = 1;
+    private static final int RELEASED = 2;
+    private static final int EXPIRED = 3;
+
+    static final class Hold extends TimingWheel.Entry {
+        final String username;
+        final Flight flight;
+        final int[] seats;
+        // Adult fare quoted before the seats were held
+        final long quotedFare;
+        private final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(ACTIVE);
+
+        private Hold(String username, Flight flight, int[] seats, long quotedFare, long deadlineTick) {
+            this.username = username;
+            this.flight = flight;
+            this.seats = seats;
+            this.quotedFare = quotedFare;
+            this.deadlineTick = deadlineTick;
+        }
+
+        boolean isActive() {
+            return state.get() == ACTIVE;
+        }
+    }
+
+    private final long ttlNanos;
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final Consumer<List<Hold>> onExpire;
+    private final Queue<Hold> added = new ConcurrentLinkedQueue<>();
+    // Owned by the ticker thread
+    private final TimingWheel wheel = new TimingWheel(0);
+    private final AtomicLong active = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private volatile boolean closed;
+    private final Thread ticker;
+
+    SeatHolds(long ttlMillis, long tickMillis, Consumer<List<Hold>> onExpire) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(tickMillis, 1));
+        this.onExpire = onExpire;
+        ticker = new Thread(this::tickLoop, "seat-hold-ticker");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    long ttlMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(ttlNanos);
+    }
+
+    // Holds neither confirmed, released nor expired yet
+    long active() {
+        return active.get();
+    }
+
+    long expired() {
+        return expired.get();
+    }
+
+    // Takes over seats the caller has already reserved on the flight
+    Hold hold(String username, Flight flight, int[] seats, long quotedFare) {
+        // Rounded up, so a hold never lapses before its TTL
+        long deadlineTick = (System.nanoTime() - startNanos + ttlNanos + tickNanos - 1) / tickNanos;
+        Hold hold = new Hold(username, flight, seats, quotedFare, deadlineTick);
+        active.incrementAndGet();
+        added.add(hold);
+        return hold;
+    }
+
+    // Claims the hold's seats for a booking; false if it has already lapsed or been released
+    boolean confirm(Hold hold) {
+        return settle(hold, CONFIRMED);
+    }
+
+    // Gives the seats up early; the caller puts them back on sale. False if already settled.
+    boolean release(Hold hold) {
+        return settle(hold, RELEASED);
+    }
+
+    private boolean settle(Hold hold, int outcome) {
+        if (!hold.state.compareAndSet(ACTIVE, outcome)) return false;
+        active.decrementAndGet();
+        return true;
+    }
+
+    private void tickLoop() {
+        List<Hold> lapsed = new ArrayList<>();
+        Consumer<TimingWheel.Entry> expire = entry -> {
+            Hold hold = (Hold) entry;
+            if (settle(hold, EXPIRED)) lapsed.add(hold);
+        };
+        while (!closed) {
+            Hold hold;
+            while ((hold = added.poll()) != null) {
+                wheel.schedule(hold, hold.deadlineTick);
+            }
+            // Every tick whose time has fully come
+            long now = (System.nanoTime() - startNanos) / tickNanos;
+            wheel.advance(now + 1, expire);
+            if (!lapsed.isEmpty()) {
+                expired.addAndGet(lapsed.size());
+                try {
+                    onExpire.accept(lapsed);
+                } catch (RuntimeException e) {
+                    System.out.println("Error expiring seat holds: " + e.getMessage());
+                }
+                lapsed.clear();
+            }
+            long nextTick = startNanos + (now + 1) * tickNanos;
+            LockSupport.parkNanos(this, nextTick - System.nanoTime());
+        }
+    }
+
+    // Stops expiring holds; seats still held stay reserved until the process exits
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(ticker);
+        try {
+            ticker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
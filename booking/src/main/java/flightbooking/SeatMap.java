@@ -0,0 +1,156 @@
+package flightbooking;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Seat identities for one flight as one long word per cabin row, a set bit meaning the seat is taken.
+// Allocation finds contiguous free runs with word-level shifts and claims them with a single CAS,
+// so seating a party allocates nothing and never blocks.
+class SeatMap {
+    // Row letters skip I, as airlines do
+    private static final String LETTERS = "ABCDEFGHJK";
+
+    final int totalSeats;
+    final int seatsPerRow;
+    final int rows;
+    private final long fullRowMask;
+    private final long lastRowMask;
+    private final AtomicLongArray occupied;
+    // Seats held by journaled bookings; changed only under the journal lock and saved in snapshots
+    final long[] committed;
+
+    SeatMap(int totalSeats) {
+        this.totalSeats = totalSeats;
+        // Narrow-body 3-3 layout, wide-body 3-4-3
+        this.seatsPerRow = totalSeats > 200 ? 10 : 6;
+        this.rows = Math.max(1, (totalSeats + seatsPerRow - 1) / seatsPerRow);
+        this.fullRowMask = (1L << seatsPerRow) - 1;
+        int lastRowSeats = totalSeats - (rows - 1) * seatsPerRow;
+        this.lastRowMask = lastRowSeats <= 0 ? 0 : (1L << lastRowSeats) - 1;
+        this.occupied = new AtomicLongArray(rows);
+        this.committed = new long[rows];
+    }
+
+    private long rowMask(int row) {
+        return row == rows - 1 ? lastRowMask : fullRowMask;
+    }
+
+    // Bit j of the result is set when seats j .. j+n-1 are all free, built by doubling the run length
+    static long runStarts(long free, int n) {
+        long starts = free;
+        int length = 1;
+        while (length < n) {
+            int step = Math.min(length, n - length);
+            starts &= starts >>> step;
+            length += step;
+        }
+        return starts;
+    }
+
+    // Claims n adjacent seats in one row and returns the first seat index, or -1 if no row has room
+    int allocateContiguous(int n) {
+        if (n <= 0 || n > seatsPerRow) return -1;
+        long run = (1L << n) - 1;
+        for (int row = 0; row < rows; row++) {
+            long mask = rowMask(row);
+            while (true) {
+                long taken = occupied.get(row);
+                long starts = runStarts(~taken & mask, n);
+                if (starts == 0) break;
+                int start = Long.numberOfTrailingZeros(starts);
+                if (occupied.compareAndSet(row, taken, taken | (run << start))) {
+                    return row * seatsPerRow + start;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Fills seats[0..n) with a contiguous block when one exists, otherwise with the lowest free seats.
+    // All or nothing: returns false with no seats held if fewer than n are free.
+    boolean allocate(int n, int[] seats) {
+        if (n <= 0) return true;
+        int first = allocateContiguous(n);
+        if (first >= 0) {
+            for (int i = 0; i < n; i++) seats[i] = first + i;
+            return true;
+        }
+
+        int got = 0;
+        for (int row = 0; row < rows && got < n; row++) {
+            long mask = rowMask(row);
+            while (got < n) {
+                long taken = occupied.get(row);
+                long free = ~taken & mask;
+                if (free == 0) break;
+                long bit = Long.lowestOneBit(free);
+                if (occupied.compareAndSet(row, taken, taken | bit)) {
+                    seats[got++] = row * seatsPerRow + Long.numberOfTrailingZeros(bit);
+                }
+            }
+        }
+        if (got < n) {
+            for (int i = 0; i < got; i++) release(seats[i]);
+            return false;
+        }
+        return true;
+    }
+
+    void release(int seat) {
+        int row = seat / seatsPerRow;
+        long bit = 1L << (seat % seatsPerRow);
+        while (true) {
+            long taken = occupied.get(row);
+            if ((taken & bit) == 0 || occupied.compareAndSet(row, taken, taken & ~bit)) return;
+        }
+    }
+
+    void occupy(int seat) {
+        int row = seat / seatsPerRow;
+        long bit = 1L << (seat % seatsPerRow);
+        while (true) {
+            long taken = occupied.get(row);
+            if ((taken & bit) != 0 || occupied.compareAndSet(row, taken, taken | bit)) return;
+        }
+    }
+
+    boolean isOccupied(int seat) {
+        return (occupied.get(seat / seatsPerRow) & (1L << (seat % seatsPerRow))) != 0;
+    }
+
+    boolean isValid(int seat) {
+        return seat >= 0 && seat < totalSeats;
+    }
+
+    void commit(int seat, boolean booked) {
+        long bit = 1L << (seat % seatsPerRow);
+        if (booked) {
+            committed[seat / seatsPerRow] |= bit;
+        } else {
+            committed[seat / seatsPerRow] &= ~bit;
+        }
+    }
+
+    // After a restart only journaled seats are taken
+    void restoreFromCommitted() {
+        for (int row = 0; row < rows; row++) {
+            occupied.set(row, committed[row]);
+        }
+    }
+
+    String label(int seat) {
+        return (seat / seatsPerRow + 1) + String.valueOf(LETTERS.charAt(seat % seatsPerRow));
+    }
+
+    // Parses a label such as "12C" back to a seat index, or -1 if it is not one
+    int parseLabel(String label) {
+        if (label.length() < 2) return -1;
+        int column = LETTERS.indexOf(label.charAt(label.length() - 1));
+        if (column < 0 || column >= seatsPerRow) return -1;
+        try {
+            int seat = (Integer.parseInt(label.substring(0, label.length() - 1)) - 1) * seatsPerRow + column;
+            return isValid(seat) ? seat : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
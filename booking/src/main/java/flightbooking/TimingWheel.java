@@ -0,0 +1,102 @@
+package flightbooking;
+
+import java.util.function.Consumer;
+
+// Hierarchical timing wheel over integer ticks: four levels of 64 slots, each slot of a level
+// spanning one full turn of the level below, so deadlines up to 2^24 ticks ahead are held in 256
+// slot lists. Scheduling is O(1) and so is expiring an entry; an entry on an upper level is moved
+// down once each time the level below wraps, at most three moves over its life.
+//
+// Not thread-safe: one thread schedules and advances.
+class TimingWheel {
+    static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    // Deadlines further ahead are pulled in to the last tick the wheel can represent
+    static final long MAX_DELAY_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    // Something with a deadline; linked into at most one slot at a time
+    static class Entry {
+        long deadline;
+        private Entry next;
+    }
+
+    private final Entry[][] slots = new Entry[LEVELS][SLOTS];
+    // The next tick to be processed
+    private long current;
+    private int size;
+
+    TimingWheel(long startTick) {
+        this.current = startTick;
+    }
+
+    long currentTick() {
+        return current;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Adds an entry that expires once its deadline tick is processed; a deadline already
+    // passed expires on the next tick
+    void schedule(Entry entry, long deadline) {
+        entry.deadline = deadline;
+        size++;
+        place(entry);
+    }
+
+    private void place(Entry entry) {
+        long delay = entry.deadline - current;
+        if (delay < 0) {
+            entry.deadline = current;
+            delay = 0;
+        } else if (delay > MAX_DELAY_TICKS) {
+            entry.deadline = current + MAX_DELAY_TICKS;
+            delay = MAX_DELAY_TICKS;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) (entry.deadline >>> (SLOT_BITS * level)) & SLOT_MASK;
+        entry.next = slots[level][slot];
+        slots[level][slot] = entry;
+    }
+
+    // Processes every tick before `until`, handing each entry to expired as its deadline comes up
+    void advance(long until, Consumer<Entry> expired) {
+        while (current < until) {
+            int index = (int) current & SLOT_MASK;
+            // On a wrap, redistribute the next slot of each level above whose own index wrapped
+            if (index == 0) {
+                for (int level = 1; level < LEVELS; level++) {
+                    int slot = (int) (current >>> (SLOT_BITS * level)) & SLOT_MASK;
+                    cascade(level, slot);
+                    if (slot != 0) break;
+                }
+            }
+            current++;
+            Entry entry = slots[0][index];
+            slots[0][index] = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.next = null;
+                size--;
+                expired.accept(entry);
+                entry = next;
+            }
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        Entry entry = slots[level][slot];
+        slots[level][slot] = null;
+        while (entry != null) {
+            Entry next = entry.next;
+            place(entry);
+            entry = next;
+        }
+    }
+}
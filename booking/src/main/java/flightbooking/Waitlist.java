@@ -0,0 +1,126 @@
+package flightbooking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Bounded per-flight waitlist ordered by priority tier, then by arrival. Each entry is a whole
+// party so a multi-ticket request is promoted, and seated, as one unit.
+class Waitlist {
+    enum Tier { PRIORITY, STANDARD }
+
+    static class Entry {
+        final String username;
+        final List<String> passengerNames;
+        final Tier tier;
+        final long enqueuedAt;
+        // Arrival order within a tier; assigned by the waitlist
+        long seq;
+
+        Entry(String username, List<String> passengerNames, Tier tier, long enqueuedAt) {
+            this.username = username;
+            this.passengerNames = passengerNames;
+            this.tier = tier;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        int partySize() {
+            return passengerNames.size();
+        }
+    }
+
+    static class Promotion {
+        final Entry entry;
+        final int[] seats;
+
+        Promotion(Entry entry, int[] seats) {
+            this.entry = entry;
+            this.seats = seats;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER =
+        Comparator.<Entry, Tier>comparing(e -> e.tier).thenComparingLong(e -> e.seq);
+
+    final int capacity;
+    // Guarded by this
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>(ORDER);
+    private long nextSeq;
+    private int waitingPassengers;
+
+    Waitlist(int capacity) {
+        this.capacity = capacity;
+    }
+
+    static int defaultCapacity() {
+        return Integer.getInteger("booking.waitlist.capacity", 100);
+    }
+
+    // Returns false when the waitlist is full
+    synchronized boolean offer(Entry entry) {
+        if (heap.size() >= capacity || entry.partySize() == 0) return false;
+        entry.seq = nextSeq++;
+        heap.add(entry);
+        waitingPassengers += entry.partySize();
+        return true;
+    }
+
+    // Seats every party that fits, in priority order, in a single pass over the queue. A party
+    // too large for the seats left stays queued, and smaller parties behind it may still be seated.
+    synchronized List<Promotion> promote(Flight flight) {
+        if (heap.isEmpty() || flight.availableSeats() == 0) return Collections.emptyList();
+        List<Promotion> promoted = new ArrayList<>();
+        List<Entry> skipped = new ArrayList<>();
+        while (!heap.isEmpty() && flight.availableSeats() > 0) {
+            Entry entry = heap.poll();
+            int[] seats = new int[entry.partySize()];
+            if (flight.reserveSeats(entry.partySize(), seats)) {
+                promoted.add(new Promotion(entry, seats));
+                waitingPassengers -= entry.partySize();
+            } else {
+                skipped.add(entry);
+            }
+        }
+        heap.addAll(skipped);
+        return promoted;
+    }
+
+    // Puts back parties whose promotion could not be saved, in their old places in line
+    synchronized void requeue(List<Entry> entries) {
+        for (Entry entry : entries) {
+            heap.add(entry);
+            waitingPassengers += entry.partySize();
+        }
+    }
+
+    // Drops username's waiting party that includes passengerName, if there is one
+    synchronized boolean remove(String username, String passengerName) {
+        for (Iterator<Entry> it = heap.iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.username.equals(username) && entry.passengerNames.contains(passengerName)) {
+                it.remove();
+                waitingPassengers -= entry.partySize();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized int size() {
+        return heap.size();
+    }
+
+    synchronized int waitingPassengers() {
+        return waitingPassengers;
+    }
+
+    // Entries in promotion order
+    synchronized List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(heap);
+        entries.sort(ORDER);
+        return entries;
+    }
+}
@@ -0,0 +1,125 @@
+package flightbooking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+// Hammers a single popular flight from many threads and checks that no seat is ever oversold
+class InventoryStressTest {
+    private static final int THREADS = 16;
+    private static final int ITERATIONS = 2000;
+
+    interface Worker {
+        void run(int iterations) throws Exception;
+    }
+
+    // Everyone races for a 400-seat aircraft with parties of 1-6; the sum reserved must never exceed capacity
+    @Test
+    void allOrNothingReservationsNeverOversell() throws Exception {
+        Flight flight = new FlightTable().add("ST001", "Delhi", "Mumbai", 400, 5000, "08:00 AM");
+        AtomicInteger reserved = new AtomicInteger();
+
+        boolean inRange = runConcurrently(1, n -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int misses = 0;
+            while (misses < 10) {
+                int party = 1 + random.nextInt(6);
+                if (flight.tryReserveSeats(party)) {
+                    reserved.addAndGet(party);
+                } else {
+                    misses++;
+                }
+            }
+        }, flight);
+
+        assertTrue(inRange, "seat count left [0, capacity] during the run");
+        assertTrue(reserved.get() <= flight.totalSeats(), "reserved " + reserved.get() + " of " + flight.totalSeats());
+        assertEquals(flight.totalSeats(), reserved.get() + flight.availableSeats());
+    }
+
+    // Book then cancel in a loop; shortfalls join the waitlist under an account and are promoted
+    // after each cancellation, and every promoted party later cancels too, so all seats come back
+    @Test
+    void bookCancelAndPromoteReturnEverySeat() throws Exception {
+        Flight flight = new FlightTable().add("ST002", "Delhi", "Singapore", 4, 17000, "01:50 PM");
+        boolean inRange = runConcurrently(ITERATIONS, n -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String user = Thread.currentThread().getName();
+            for (int i = 0; i < n; i++) {
+                int wanted = 1 + random.nextInt(4);
+                int booked = flight.bookSeat(wanted);
+                if (booked < wanted) {
+                    List<String> party = Collections.nCopies(wanted - booked, user);
+                    flight.waitlist().offer(new Waitlist.Entry(user, party, Waitlist.Tier.STANDARD, System.currentTimeMillis()));
+                }
+                for (int j = 0; j < booked; j++) {
+                    flight.cancelSeat();
+                }
+                promoteAndCancel(flight);
+            }
+        }, flight);
+
+        assertTrue(inRange, "seat count left [0, capacity] during the run");
+        assertEquals(flight.totalSeats(), flight.availableSeats());
+        // Whoever is still waiting fits once nobody holds a seat
+        while (flight.getWaitlistSize() > 0) {
+            assertTrue(promoteAndCancel(flight) > 0, "waiting parties were not promoted onto a free flight");
+        }
+        assertEquals(flight.totalSeats(), flight.availableSeats());
+    }
+
+    // Seats the parties that fit, then cancels them, returning how many passengers were seated
+    private static int promoteAndCancel(Flight flight) {
+        int seated = 0;
+        for (Waitlist.Promotion promotion : flight.promoteWaitlisted()) {
+            for (int seat : promotion.seats) {
+                flight.cancelSeat(seat);
+            }
+            seated += promotion.entry.partySize();
+        }
+        return seated;
+    }
+
+    // Starts all workers together while a monitor thread watches for a seat count out of range;
+    // returns false if it saw one or a worker threw
+    private static boolean runConcurrently(int iterations, Worker worker, Flight flight) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        AtomicBoolean failed = new AtomicBoolean();
+
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run(iterations);
+                } catch (Exception e) {
+                    failed.set(true);
+                } finally {
+                    done.countDown();
+                }
+            }, "stress-" + t);
+            thread.start();
+        }
+
+        Thread monitor = new Thread(() -> {
+            while (done.getCount() > 0) {
+                if (flight.availableSeats() < 0 || flight.availableSeats() > flight.totalSeats()) {
+                    failed.set(true);
+                }
+            }
+        });
+        monitor.setDaemon(true);
+        monitor.start();
+
+        start.countDown();
+        done.await();
+        return !failed.get();
+    }
+}